@@ -0,0 +1,270 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.aio.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remember5.aio.config.NearCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RPatternTopic;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 本地近端缓存(L1)，放在 RedisService 读操作前面，用于配置类的热点key
+ * <p>
+ * 1. 只缓存命中 near-cache.prefixes 的key，容量和存活时间有上限，淘汰策略为 Caffeine 的 W-TinyLFU<br>
+ * 2. 同一个key并发未命中时只有一个线程回源redis，其余线程等待结果<br>
+ * 3. 写入时删除本地缓存并通过 RTopic 通知其它节点删除，也可以订阅键空间通知<br>
+ * 4. 命中/未命中按前缀记录到 near.cache.gets 指标<br>
+ * 5. hash 按 key 分组缓存各项，删除一个 key 只移除该组；回源期间发生失效时结果不放入缓存
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Component
+public class NearCache {
+
+    /**
+     * 版本号分段数
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    private static final String KEYSPACE_SEPARATOR = "__:";
+
+    private final NearCacheProperties properties;
+
+    private final RedissonClient redissonClient;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 普通key -> 值
+     */
+    private final Cache<String, Object> values;
+
+    /**
+     * hash key -> (项 -> 值)，失效时整组移除
+     */
+    private final Cache<String, ConcurrentMap<Object, Object>> hashes;
+
+    /**
+     * 按key分段的版本号，失效时递增；回源前后版本不一致说明期间有写入，结果不放入缓存
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    private final List<Runnable> unsubscribes = new ArrayList<>();
+
+    private RTopic topic;
+
+    public NearCache(NearCacheProperties properties, RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redissonClient = redissonClient;
+        this.meterRegistry = meterRegistry;
+        this.values = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.hashes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!Boolean.TRUE.equals(properties.getEnabled())) {
+            return;
+        }
+        topic = redissonClient.getTopic(properties.getTopic());
+        int listenerId = topic.addListener(List.class, (channel, keys) -> keys.forEach(key -> invalidateLocal(String.valueOf(key))));
+        unsubscribes.add(() -> topic.removeListener(listenerId));
+        if (Boolean.TRUE.equals(properties.getKeyspaceNotifications())) {
+            for (String prefix : properties.getPrefixes()) {
+                RPatternTopic keyspace = redissonClient.getPatternTopic("__keyspace@*__:" + prefix + "*", StringCodec.INSTANCE);
+                int id = keyspace.addListener(String.class, (pattern, channel, event) -> {
+                    // 键空间通知 __keyspace@<db>__:<key>
+                    String name = channel.toString();
+                    invalidateLocal(name.substring(name.indexOf(KEYSPACE_SEPARATOR) + KEYSPACE_SEPARATOR.length()));
+                });
+                unsubscribes.add(() -> keyspace.removeListener(id));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        unsubscribes.forEach(Runnable::run);
+    }
+
+    /**
+     * 读取普通缓存
+     *
+     * @param key    键
+     * @param loader 未命中时回源redis
+     * @return 值
+     */
+    public <T> T get(String key, Supplier<T> loader) {
+        Counter[] prefixCounters = countersOf(key);
+        if (prefixCounters == null) {
+            return loader.get();
+        }
+        return load(key, values.asMap(), key, loader, prefixCounters);
+    }
+
+    /**
+     * 读取hash中的一项
+     *
+     * @param key    键
+     * @param field  hash键
+     * @param loader 未命中时回源redis
+     * @return 值
+     */
+    public <T> T get(String key, Object field, Supplier<T> loader) {
+        Counter[] prefixCounters = countersOf(key);
+        if (prefixCounters == null) {
+            return loader.get();
+        }
+        ConcurrentMap<Object, Object> fields = hashes.get(key, k -> new ConcurrentHashMap<>());
+        return load(key, fields, field, loader, prefixCounters);
+    }
+
+    private Counter[] countersOf(String key) {
+        String prefix = prefixOf(key);
+        return prefix == null ? null : counters.computeIfAbsent(prefix, this::registerCounters);
+    }
+
+    /**
+     * 同一项并发未命中时只回源一次；回源前后版本号不一致时不缓存结果，
+     * 避免失效之前读到的旧值在失效之后被放回缓存
+     */
+    @SuppressWarnings("unchecked")
+    private <K, T> T load(String key, ConcurrentMap<K, Object> map, K cacheKey, Supplier<T> loader, Counter[] prefixCounters) {
+        Object value = map.get(cacheKey);
+        if (value != null) {
+            prefixCounters[0].increment();
+            return (T) value;
+        }
+        prefixCounters[1].increment();
+        long version = versions.get(stripe(key));
+        boolean[] loaded = new boolean[1];
+        Object[] result = new Object[1];
+        // 值为null时不缓存
+        value = map.computeIfAbsent(cacheKey, k -> {
+            loaded[0] = true;
+            result[0] = loader.get();
+            return versions.get(stripe(key)) == version ? result[0] : null;
+        });
+        if (value != null) {
+            return (T) value;
+        }
+        // 本线程回源但结果未缓存，或等待的其它线程回源结果未缓存
+        return loaded[0] ? (T) result[0] : loader.get();
+    }
+
+    private Counter[] registerCounters(String prefix) {
+        return new Counter[]{
+                Counter.builder("near.cache.gets").tag("prefix", prefix).tag("result", "hit").register(meterRegistry),
+                Counter.builder("near.cache.gets").tag("prefix", prefix).tag("result", "miss").register(meterRegistry)
+        };
+    }
+
+    /**
+     * 写入后调用，删除本地缓存并通知其它节点
+     *
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        invalidate(Collections.singletonList(key));
+    }
+
+    /**
+     * 写入后调用，删除本地缓存并通知其它节点，多个key只发布一次
+     *
+     * @param keys 键
+     */
+    public void invalidate(Collection<String> keys) {
+        List<String> cachedKeys = keys.stream().filter(key -> prefixOf(key) != null).toList();
+        if (cachedKeys.isEmpty()) {
+            return;
+        }
+        cachedKeys.forEach(this::invalidateLocal);
+        try {
+            topic.publish(new ArrayList<>(cachedKeys));
+        } catch (Exception e) {
+            // 通知失败时其它节点依靠ttl过期
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 异步写入完成后调用，删除本地缓存并用 publishAsync 通知其它节点，不阻塞调用线程
+     *
+     * @param keys 键
+     */
+    public void invalidateAsync(Collection<String> keys) {
+        List<String> cachedKeys = keys.stream().filter(key -> prefixOf(key) != null).toList();
+        if (cachedKeys.isEmpty()) {
+            return;
+        }
+        cachedKeys.forEach(this::invalidateLocal);
+        topic.publishAsync(new ArrayList<>(cachedKeys)).whenComplete((receivers, e) -> {
+            if (e != null) {
+                // 通知失败时其它节点依靠ttl过期
+                log.error(e.getMessage(), e);
+            }
+        });
+    }
+
+    private void invalidateLocal(String key) {
+        // 先递增版本号，正在回源的线程不会再缓存旧值
+        versions.incrementAndGet(stripe(key));
+        values.invalidate(key);
+        hashes.invalidate(key);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    private String prefixOf(String key) {
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || key == null) {
+            return null;
+        }
+        for (String prefix : properties.getPrefixes()) {
+            if (key.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.aio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地近端缓存(L1)配置
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "near-cache")
+public class NearCacheProperties {
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 本地最多缓存的条数，超出后按 W-TinyLFU 淘汰
+     */
+    private Long maximumSize = 10000L;
+
+    /**
+     * 写入后的存活时间，兜底未收到失效通知的情况
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * 需要本地缓存的key前缀，只有命中前缀的key才会进入本地缓存，命中率也按前缀统计
+     */
+    private List<String> prefixes = new ArrayList<>();
+
+    /**
+     * 集群失效通知的 RTopic
+     */
+    private String topic = "near-cache:invalidate";
+
+    /**
+     * 是否同时订阅redis键空间通知，需要redis开启 notify-keyspace-events
+     */
+    private Boolean keyspaceNotifications = false;
+
+}
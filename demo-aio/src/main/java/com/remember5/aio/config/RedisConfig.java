@@ -15,7 +15,7 @@
  */
 package com.remember5.aio.config;
 
-import com.alibaba.fastjson2.support.spring6.data.redis.GenericFastJsonRedisSerializer;
+import com.remember5.aio.serializer.CompactRedisSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -31,20 +31,24 @@ import org.springframework.data.redis.serializer.RedisSerializer;
 @Configuration
 public class RedisConfig {
 
+    /**
+     * value 序列化方式见 {@link RedisSerializerProperties}，默认 fastjson2
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory, RedisSerializerProperties properties) {
         // 创建 RedisTemplate 对象
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         // 设置 RedisConnection 工厂
         template.setConnectionFactory(redisConnectionFactory);
 
-        //默认的Serialize，包含 keySerializer & valueSerializer
-        GenericFastJsonRedisSerializer fastJsonRedisSerializer = new GenericFastJsonRedisSerializer();
+        //默认的Serialize，包含 keySerializer & valueSerializer，读取时兼容 fastjson2 旧数据
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(properties.getFormat(),
+                properties.getCompression(), properties.getCompressThreshold());
         template.setKeySerializer(RedisSerializer.string());
-        template.setValueSerializer(fastJsonRedisSerializer);
+        template.setValueSerializer(valueSerializer);
 
         template.setHashKeySerializer(RedisSerializer.string());
-        template.setHashValueSerializer(fastJsonRedisSerializer);
+        template.setHashValueSerializer(valueSerializer);
         return template;
     }
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.aio.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * redis value 序列化配置
+ * <p>
+ * 读取时根据头部字节自动识别格式，可以先全量发布新版本(能读新旧格式)，再切换写入格式
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "redis-serializer")
+public class RedisSerializerProperties {
+
+    /**
+     * 写入格式，JSON 且不压缩时与原来的 GenericFastJsonRedisSerializer 完全一致
+     */
+    private Format format = Format.JSON;
+
+    /**
+     * 压缩算法
+     */
+    private Compression compression = Compression.NONE;
+
+    /**
+     * 序列化后超过该字节数才压缩
+     */
+    private Integer compressThreshold = 1024;
+
+    public enum Format {
+        /**
+         * fastjson2 json，带类名
+         */
+        JSON,
+        /**
+         * jackson smile 二进制json
+         */
+        SMILE,
+        /**
+         * kryo 二进制
+         */
+        KRYO
+    }
+
+    public enum Compression {
+        NONE,
+        LZ4
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.aio.serializer;
+
+import com.alibaba.fastjson2.support.spring6.data.redis.GenericFastJsonRedisSerializer;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.remember5.aio.config.RedisSerializerProperties.Compression;
+import com.remember5.aio.config.RedisSerializerProperties.Format;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 可切换格式的 value 序列化，支持按大小阈值压缩
+ * <p>
+ * 数据格式：[头部 1字节][原始长度 4字节，仅压缩时][内容]<br>
+ * 头部高4位为版本号 0x1，bit1~2 为格式，bit0 为是否压缩，取值范围 0x10~0x17。
+ * json 文本的首字节不会落在该范围内，因此没有头部的旧数据按原来的 fastjson2 格式读取，新旧格式可以混读
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int HEADER_VERSION = 0x10;
+
+    private static final int HEADER_VERSION_MASK = 0xF0;
+
+    private static final int COMPRESSED = 0x01;
+
+    private static final int LENGTH_BYTES = 4;
+
+    private static final Format[] FORMATS = Format.values();
+
+    private final Map<Format, RedisSerializer<Object>> serializers = new EnumMap<>(Format.class);
+
+    private final Format format;
+
+    private final Compression compression;
+
+    private final int compressThreshold;
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4FastDecompressor decompressor;
+
+    public CompactRedisSerializer(Format format, Compression compression, int compressThreshold) {
+        this.format = format;
+        this.compression = compression;
+        this.compressThreshold = compressThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+        serializers.put(Format.JSON, new GenericFastJsonRedisSerializer());
+        serializers.put(Format.SMILE, new GenericJackson2JsonRedisSerializer(smileMapper()));
+        serializers.put(Format.KRYO, new KryoRedisSerializer());
+    }
+
+    /**
+     * 带类型信息的 jackson 配置，输出为 smile
+     */
+    private static ObjectMapper smileMapper() {
+        ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        RedisSerializer<Object> serializer = serializers.get(format);
+        if (format == Format.JSON && compression == Compression.NONE) {
+            // 不写头部，旧版本也能读取
+            return serializer.serialize(value);
+        }
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] payload = serializer.serialize(value);
+        boolean compress = compression == Compression.LZ4 && payload.length >= compressThreshold;
+        int header = HEADER_VERSION | format.ordinal() << 1 | (compress ? COMPRESSED : 0);
+        if (!compress) {
+            byte[] result = new byte[payload.length + 1];
+            result[0] = (byte) header;
+            System.arraycopy(payload, 0, result, 1, payload.length);
+            return result;
+        }
+        int maxLength = compressor.maxCompressedLength(payload.length);
+        byte[] result = new byte[1 + LENGTH_BYTES + maxLength];
+        result[0] = (byte) header;
+        writeInt(result, 1, payload.length);
+        int compressedLength = compressor.compress(payload, 0, payload.length, result, 1 + LENGTH_BYTES, maxLength);
+        return Arrays.copyOf(result, 1 + LENGTH_BYTES + compressedLength);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0] & 0xFF;
+        if ((header & HEADER_VERSION_MASK) != HEADER_VERSION) {
+            // 没有头部的旧数据
+            return serializers.get(Format.JSON).deserialize(bytes);
+        }
+        int formatIndex = (header >> 1) & 0x07;
+        if (formatIndex >= FORMATS.length) {
+            throw new SerializationException("Unknown serializer format: " + formatIndex);
+        }
+        byte[] payload;
+        if ((header & COMPRESSED) != 0) {
+            payload = decompressor.decompress(bytes, 1 + LENGTH_BYTES, readInt(bytes, 1));
+        } else {
+            payload = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return serializers.get(FORMATS[formatIndex]).deserialize(payload);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.aio.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Set;
+
+/**
+ * kryo 序列化，Kryo 实例非线程安全，通过对象池复用
+ * <p>
+ * 反序列化只允许 JDK 常用值类型和 ENTITY_PACKAGE 下的实体，缓存其它类型需要加入白名单；
+ * 字段按名称读写(CompatibleFieldSerializer)，实体增删字段后新旧版本仍可互相读取
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class KryoRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    /**
+     * 允许反序列化的实体包(含子包)
+     */
+    private static final String ENTITY_PACKAGE = "com.remember5.aio.domain";
+
+    /**
+     * 允许反序列化的 JDK 包，不含子包
+     */
+    private static final Set<String> ALLOWED_PACKAGES = Set.of("java.lang", "java.util", "java.util.concurrent",
+            "java.time", "java.math", "java.sql");
+
+    private final Pool<Kryo> pool = new Pool<Kryo>(true, false, 64) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo(new WhitelistClassResolver(), null);
+            // 不要求预先注册类，写入完整类名，读取时按白名单校验
+            kryo.setRegistrationRequired(false);
+            kryo.setDefaultSerializer(CompatibleFieldSerializer.class);
+            // 没有无参构造的类(如只有 @Builder 的实体)也能反序列化
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            return kryo;
+        }
+    };
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+        Kryo kryo = pool.obtain();
+        try (Output output = new Output(256, -1)) {
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } catch (Exception e) {
+            throw new SerializationException("Could not write kryo: " + e.getMessage(), e);
+        } finally {
+            pool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        Kryo kryo = pool.obtain();
+        try (Input input = new Input(bytes)) {
+            return kryo.readClassAndObject(input);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read kryo: " + e.getMessage(), e);
+        } finally {
+            pool.free(kryo);
+        }
+    }
+
+    private static boolean isAllowed(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        String packageName = type.getPackageName();
+        return ALLOWED_PACKAGES.contains(packageName)
+                || packageName.equals(ENTITY_PACKAGE) || packageName.startsWith(ENTITY_PACKAGE + ".");
+    }
+
+    /**
+     * 读取类名时校验白名单，redis中的数据不能指定任意类被实例化
+     */
+    private static final class WhitelistClassResolver extends DefaultClassResolver {
+
+        @Override
+        protected Registration readName(Input input) {
+            Registration registration = super.readName(input);
+            if (!isAllowed(registration.getType())) {
+                throw new KryoException("Class is not allowed to be deserialized: " + registration.getType().getName());
+            }
+            return registration;
+        }
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package com.remember5.aio.service;
 
+import com.remember5.aio.cache.NearCache;
 import lombok.RequiredArgsConstructor;
 import org.redisson.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,13 +23,17 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
+ * 基于 Redisson 的常用操作
+ * <p>
+ * 带过期时间的写入通过 RBatch 与 EXPIRE 在一次往返内完成；xxxAsync 方法统一返回 CompletionStage，不阻塞调用线程，
+ * 写入命中 near-cache.prefixes 的key时，stage 在本地缓存删除之后才完成
+ *
  * @author wangjiahao
  * @date 2025/1/4 20:16
  */
@@ -37,7 +42,28 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class RedisService {
 
+    /**
+     * 删除列表中所有等于任一参数的元素，返回删除的数量
+     */
+    private static final String LIST_REMOVE_ALL_SCRIPT =
+            "local removed = 0 " +
+            "for i = 1, #ARGV do " +
+            "    removed = removed + redis.call('LREM', KEYS[1], 0, ARGV[i]) " +
+            "end " +
+            "return removed";
+
+    /**
+     * 列表头部元素等于参数时才弹出，返回是否弹出
+     */
+    private static final String LIST_POP_IF_HEAD_SCRIPT =
+            "if redis.call('LINDEX', KEYS[1], 0) == ARGV[1] then " +
+            "    redis.call('LPOP', KEYS[1]) " +
+            "    return 1 " +
+            "end " +
+            "return 0";
+
     private final RedissonClient redissonClient;
+    private final NearCache nearCache;
 
     // ============================= String类型操作 ============================
 
@@ -50,6 +76,7 @@ public class RedisService {
     public <T> void setString(String key, T value) {
         RBucket<T> bucket = redissonClient.getBucket(key);
         bucket.set(value);
+        nearCache.invalidate(key);
     }
 
     /**
@@ -63,17 +90,84 @@ public class RedisService {
     public <T> void setString(String key, T value, long timeout, TimeUnit timeUnit) {
         RBucket<T> bucket = redissonClient.getBucket(key);
         bucket.set(value, timeout, timeUnit);
+        nearCache.invalidate(key);
     }
 
     /**
-     * 根据键获取Redis中的值
+     * 根据键获取Redis中的值，key命中 near-cache.prefixes 时先读本地缓存
      *
      * @param key 键
      * @return 值
      */
     public <T> T getString(String key) {
         RBucket<T> bucket = redissonClient.getBucket(key);
-        return bucket.get();
+        return nearCache.get(key, bucket::get);
+    }
+
+    /**
+     * 批量存储，一条 MSET 完成
+     *
+     * @param values 键值
+     */
+    public <T> void setStrings(Map<String, T> values) {
+        redissonClient.getBuckets().set(values);
+        nearCache.invalidate(values.keySet());
+    }
+
+    /**
+     * 批量存储并设置相同的过期时间，在一次往返内完成
+     *
+     * @param values   键值
+     * @param timeout  过期时间
+     * @param timeUnit 时间单位
+     */
+    public <T> void setStrings(Map<String, T> values, long timeout, TimeUnit timeUnit) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        values.forEach((key, value) -> batch.<T>getBucket(key).setAsync(value, timeout, timeUnit));
+        batch.execute();
+        nearCache.invalidate(values.keySet());
+    }
+
+    /**
+     * 批量获取，一条 MGET 完成，不经过本地缓存
+     *
+     * @param keys 键
+     * @return 存在的键值
+     */
+    public <T> Map<String, T> getStrings(String... keys) {
+        return redissonClient.getBuckets().get(keys);
+    }
+
+    public <T> CompletionStage<Void> setStringAsync(String key, T value) {
+        RBucket<T> bucket = redissonClient.getBucket(key);
+        return invalidateOnComplete(bucket.setAsync(value), key);
+    }
+
+    public <T> CompletionStage<Void> setStringAsync(String key, T value, long timeout, TimeUnit timeUnit) {
+        RBucket<T> bucket = redissonClient.getBucket(key);
+        return invalidateOnComplete(bucket.setAsync(value, timeout, timeUnit), key);
+    }
+
+    /**
+     * 异步获取，不经过本地缓存
+     */
+    public <T> CompletionStage<T> getStringAsync(String key) {
+        RBucket<T> bucket = redissonClient.getBucket(key);
+        return bucket.getAsync();
+    }
+
+    public <T> CompletionStage<Void> setStringsAsync(Map<String, T> values) {
+        return invalidateOnComplete(redissonClient.getBuckets().setAsync(values), values.keySet());
+    }
+
+    public <T> CompletionStage<Void> setStringsAsync(Map<String, T> values, long timeout, TimeUnit timeUnit) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        values.forEach((key, value) -> batch.<T>getBucket(key).setAsync(value, timeout, timeUnit));
+        return invalidateOnComplete(batch.executeAsync(), values.keySet()).thenApply(result -> null);
+    }
+
+    public <T> CompletionStage<Map<String, T>> getStringsAsync(String... keys) {
+        return redissonClient.getBuckets().getAsync(keys);
     }
 
     // ============================= Hash类型操作 ============================
@@ -87,7 +181,9 @@ public class RedisService {
      */
     public <T> boolean addToHash(String key, Object field, T value) {
         RMap<Object, T> hash = redissonClient.getMap(key);
-        return hash.fastPut(field, value);
+        boolean fastPut = hash.fastPut(field, value);
+        nearCache.invalidate(key);
+        return fastPut;
     }
 
     /**
@@ -100,14 +196,48 @@ public class RedisService {
      * @param timeUnit 时间单位
      */
     public <T> boolean addToHash(String key, Object field, T value, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RMapAsync<Object, T> hash = batch.getMap(key);
+        RFuture<Boolean> fastPut = hash.fastPutAsync(field, value);
+        RFuture<Boolean> expire = hash.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        nearCache.invalidate(key);
+        return isTrue(fastPut) && isTrue(expire);
+    }
+
+    /**
+     * 批量存储到hash，一条 HSET 完成
+     *
+     * @param key    键
+     * @param values hash键值
+     */
+    public <T> void addToHash(String key, Map<Object, T> values) {
         RMap<Object, T> hash = redissonClient.getMap(key);
-        boolean fastPut = hash.fastPut(field, value);
-        boolean expire = hash.expire(Instant.now().plus(timeout, timeUnit));
-        return fastPut && expire;
+        hash.putAll(values);
+        nearCache.invalidate(key);
+    }
+
+    /**
+     * 批量存储到hash并设置过期时间，在一次往返内完成
+     *
+     * @param key      键
+     * @param values   hash键值
+     * @param timeout  过期时间
+     * @param timeUnit 时间单位
+     * @return 设置过期时间是否成功
+     */
+    public <T> boolean addToHash(String key, Map<Object, T> values, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RMapAsync<Object, T> hash = batch.getMap(key);
+        hash.putAllAsync(values);
+        RFuture<Boolean> expire = hash.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        nearCache.invalidate(key);
+        return isTrue(expire);
     }
 
     /**
-     * 根据键和Hash键获取Redis中的值
+     * 根据键和Hash键获取Redis中的值，key命中 near-cache.prefixes 时先读本地缓存
      *
      * @param key   键
      * @param field hash键
@@ -115,7 +245,7 @@ public class RedisService {
      */
     public <T> T getFromHash(String key, Object field) {
         RMap<Object, T> hash = redissonClient.getMap(key);
-        return hash.get(field);
+        return nearCache.get(key, field, () -> hash.get(field));
     }
 
     /**
@@ -139,7 +269,9 @@ public class RedisService {
      */
     public <T> boolean updateToHash(String key, Object field, T value) {
         RMap<Object, T> hash = redissonClient.getMap(key);
-        return hash.fastReplace(field, value);
+        boolean replaced = hash.fastReplace(field, value);
+        nearCache.invalidate(key);
+        return replaced;
     }
 
     /**
@@ -151,7 +283,59 @@ public class RedisService {
      */
     public <T> long removeFromHash(String key, T... hashKeys) {
         RMap<Object, T> hash = redissonClient.getMap(key);
-        return hash.fastRemove(hashKeys);
+        long removed = hash.fastRemove(hashKeys);
+        nearCache.invalidate(key);
+        return removed;
+    }
+
+    public <T> CompletionStage<Boolean> addToHashAsync(String key, Object field, T value) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return invalidateOnComplete(hash.fastPutAsync(field, value), key);
+    }
+
+    public <T> CompletionStage<Boolean> addToHashAsync(String key, Object field, T value, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RMapAsync<Object, T> hash = batch.getMap(key);
+        RFuture<Boolean> fastPut = hash.fastPutAsync(field, value);
+        RFuture<Boolean> expire = hash.expireAsync(expireAt(timeout, timeUnit));
+        return invalidateOnComplete(batch.executeAsync(), key)
+                .thenCompose(result -> fastPut.thenCombine(expire, (put, expired) -> put && expired));
+    }
+
+    public <T> CompletionStage<Void> addToHashAsync(String key, Map<Object, T> values) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return invalidateOnComplete(hash.putAllAsync(values), key);
+    }
+
+    public <T> CompletionStage<Boolean> addToHashAsync(String key, Map<Object, T> values, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RMapAsync<Object, T> hash = batch.getMap(key);
+        hash.putAllAsync(values);
+        RFuture<Boolean> expire = hash.expireAsync(expireAt(timeout, timeUnit));
+        return invalidateOnComplete(batch.executeAsync(), key).thenCompose(result -> expire);
+    }
+
+    /**
+     * 异步获取，不经过本地缓存
+     */
+    public <T> CompletionStage<T> getFromHashAsync(String key, Object field) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return hash.getAsync(field);
+    }
+
+    public <T> CompletionStage<Map<Object, T>> getFromHashAsync(String key) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return hash.readAllMapAsync();
+    }
+
+    public <T> CompletionStage<Boolean> updateToHashAsync(String key, Object field, T value) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return invalidateOnComplete(hash.fastReplaceAsync(field, value), key);
+    }
+
+    public <T> CompletionStage<Long> removeFromHashAsync(String key, T... hashKeys) {
+        RMap<Object, T> hash = redissonClient.getMap(key);
+        return invalidateOnComplete(hash.fastRemoveAsync(hashKeys), key);
     }
 
     // ============================= List类型操作 ============================
@@ -187,9 +371,12 @@ public class RedisService {
      * @param timeUnit 时间单位
      */
     public <T> boolean addToList(String key, T value, long timeout, ChronoUnit timeUnit) {
-        RList<T> list = redissonClient.getList(key);
-        list.add(value);
-        return list.expire(Instant.now().plus(timeout, timeUnit));
+        RBatch batch = createAtomicBatch();
+        RListAsync<T> list = batch.getList(key);
+        list.addAsync(value);
+        RFuture<Boolean> expire = list.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        return isTrue(expire);
     }
 
     /**
@@ -223,8 +410,8 @@ public class RedisService {
      * @param key 键
      */
     public void removeListLeft(String key) {
-        RList<Object> list = redissonClient.getList(key);
-        list.fastRemove(0);
+        RDeque<Object> list = redissonClient.getDeque(key);
+        list.pollFirst();
     }
 
     /**
@@ -233,8 +420,8 @@ public class RedisService {
      * @param key 键
      */
     public void removeListRight(String key) {
-        RList<Object> list = redissonClient.getList(key);
-        list.fastRemove(list.size() - 1);
+        RDeque<Object> list = redissonClient.getDeque(key);
+        list.pollLast();
     }
 
     /**
@@ -249,14 +436,102 @@ public class RedisService {
     }
 
     /**
-     * 移除集合指定元素
+     * 移除集合中所有等于 value 的元素，一条 LREM 完成，按序列化后的字节比较
      *
      * @param key   键
      * @param value 值
      */
     public <T> boolean removeFromList(String key, T value) {
         RList<T> list = redissonClient.getList(key);
-        return list.removeIf(o -> o.equals(value));
+        return list.remove(value, 0);
+    }
+
+    /**
+     * 移除集合中所有等于任一 values 的元素，在服务端通过lua执行，不会把列表读到本地
+     *
+     * @param key    键
+     * @param values 值
+     * @return 移除的数量
+     */
+    public <T> long removeAllFromList(String key, Collection<T> values) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        Long removed = redissonClient.getScript().eval(key, RScript.Mode.READ_WRITE, LIST_REMOVE_ALL_SCRIPT,
+                RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), values.toArray());
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * 集合左侧第一个元素等于 expected 时才移除，判断与移除在服务端原子执行，
+     * 适合多个消费者按 "确认后出队" 的方式处理列表
+     *
+     * @param key      键
+     * @param expected 期望的头部元素
+     * @return 是否移除
+     */
+    public <T> boolean removeListLeftIf(String key, T expected) {
+        Long removed = redissonClient.getScript().eval(key, RScript.Mode.READ_WRITE, LIST_POP_IF_HEAD_SCRIPT,
+                RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), expected);
+        return removed != null && removed > 0;
+    }
+
+    public <T> CompletionStage<Boolean> addToListAsync(String key, T value) {
+        RList<T> list = redissonClient.getList(key);
+        return list.addAsync(value);
+    }
+
+    public <T> CompletionStage<Boolean> addToListAsync(String key, List<T> value) {
+        RList<T> list = redissonClient.getList(key);
+        return list.addAllAsync(value);
+    }
+
+    public <T> CompletionStage<Boolean> addToListAsync(String key, T value, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RListAsync<T> list = batch.getList(key);
+        list.addAsync(value);
+        RFuture<Boolean> expire = list.expireAsync(expireAt(timeout, timeUnit));
+        return batch.executeAsync().thenCompose(result -> expire);
+    }
+
+    public <T> CompletionStage<List<T>> getFromListAsync(String key, int start, int end) {
+        RList<T> list = redissonClient.getList(key);
+        return list.rangeAsync(start, end);
+    }
+
+    public <T> CompletionStage<List<T>> getFromListAsync(String key) {
+        RList<T> list = redissonClient.getList(key);
+        return list.readAllAsync();
+    }
+
+    public <T> CompletionStage<T> removeListLeftAsync(String key) {
+        RDeque<T> list = redissonClient.getDeque(key);
+        return list.pollFirstAsync();
+    }
+
+    public <T> CompletionStage<T> removeListRightAsync(String key) {
+        RDeque<T> list = redissonClient.getDeque(key);
+        return list.pollLastAsync();
+    }
+
+    public CompletionStage<Void> removeFromListAsync(String key, int index) {
+        RList<Object> list = redissonClient.getList(key);
+        return list.fastRemoveAsync(index);
+    }
+
+    public <T> CompletionStage<Boolean> removeFromListAsync(String key, T value) {
+        RList<T> list = redissonClient.getList(key);
+        return list.removeAsync(value, 0);
+    }
+
+    public <T> CompletionStage<Long> removeAllFromListAsync(String key, Collection<T> values) {
+        return redissonClient.getScript().evalAsync(key, RScript.Mode.READ_WRITE, LIST_REMOVE_ALL_SCRIPT,
+                RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), values.toArray());
+    }
+
+    public <T> CompletionStage<Long> removeListLeftIfAsync(String key, T expected) {
+        return redissonClient.getScript().evalAsync(key, RScript.Mode.READ_WRITE, LIST_POP_IF_HEAD_SCRIPT,
+                RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), expected);
     }
 
     // ============================= Set类型操作 ============================
@@ -282,10 +557,12 @@ public class RedisService {
      * @return 是否成功
      */
     public <T> boolean addToSet(String key, T value, long timeout, ChronoUnit timeUnit) {
-        RSet<T> set = redissonClient.getSet(key);
-        boolean add = set.add(value);
-        boolean expire = set.expire(Instant.now().plus(timeout, timeUnit));
-        return add && expire;
+        RBatch batch = createAtomicBatch();
+        RSetAsync<T> set = batch.getSet(key);
+        RFuture<Boolean> add = set.addAsync(value);
+        RFuture<Boolean> expire = set.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        return isTrue(add) && isTrue(expire);
     }
 
     /**
@@ -310,9 +587,12 @@ public class RedisService {
      * @return 是否成功
      */
     public <T> boolean addToSet(String key, List<T> values, long timeout, ChronoUnit timeUnit) {
-        RSet<T> set = redissonClient.getSet(key);
-        set.addAllCounted(values);
-        return set.expire(Instant.now().plus(timeout, timeUnit));
+        RBatch batch = createAtomicBatch();
+        RSetAsync<T> set = batch.getSet(key);
+        set.addAllAsync(values);
+        RFuture<Boolean> expire = set.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        return isTrue(expire);
     }
 
 
@@ -328,14 +608,14 @@ public class RedisService {
     }
 
     /**
-     * 从Set数据类型中删除值
+     * 从Set数据类型中删除值，一条 SREM 完成
      *
      * @param key    键
      * @param values 值
      */
     public <T> void removeFromSet(String key, List<T> values) {
         RSet<T> set = redissonClient.getSet(key);
-        values.forEach(set::remove);
+        set.removeAll(values);
     }
 
     /**
@@ -349,6 +629,47 @@ public class RedisService {
         return set.remove(value);
     }
 
+    public <T> CompletionStage<Boolean> addToSetAsync(String key, T value) {
+        RSet<T> set = redissonClient.getSet(key);
+        return set.addAsync(value);
+    }
+
+    public <T> CompletionStage<Boolean> addToSetAsync(String key, T value, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RSetAsync<T> set = batch.getSet(key);
+        RFuture<Boolean> add = set.addAsync(value);
+        RFuture<Boolean> expire = set.expireAsync(expireAt(timeout, timeUnit));
+        return batch.executeAsync().thenCompose(result -> add.thenCombine(expire, (added, expired) -> added && expired));
+    }
+
+    public <T> CompletionStage<Boolean> addToSetAsync(String key, List<T> values) {
+        RSet<T> set = redissonClient.getSet(key);
+        return set.addAllAsync(values);
+    }
+
+    public <T> CompletionStage<Boolean> addToSetAsync(String key, List<T> values, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RSetAsync<T> set = batch.getSet(key);
+        set.addAllAsync(values);
+        RFuture<Boolean> expire = set.expireAsync(expireAt(timeout, timeUnit));
+        return batch.executeAsync().thenCompose(result -> expire);
+    }
+
+    public <T> CompletionStage<Set<T>> getFromSetAsync(String key) {
+        RSet<T> set = redissonClient.getSet(key);
+        return set.readAllAsync();
+    }
+
+    public <T> CompletionStage<Boolean> removeFromSetAsync(String key, List<T> values) {
+        RSet<T> set = redissonClient.getSet(key);
+        return set.removeAllAsync(values);
+    }
+
+    public <T> CompletionStage<Boolean> removeFromSetAsync(String key, T value) {
+        RSet<T> set = redissonClient.getSet(key);
+        return set.removeAsync(value);
+    }
+
     // ============================= ZSet类型操作 ============================
 
     /**
@@ -357,10 +678,11 @@ public class RedisService {
      * @param key   键
      * @param value 值
      * @param score 分值
+     * @return 是否新增
      */
-    public <T> void addToZSet(String key, T value, double score) {
+    public <T> boolean addToZSet(String key, T value, double score) {
         RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
-        sortedSet.add(score, value);
+        return sortedSet.add(score, value);
     }
 
     /**
@@ -371,11 +693,27 @@ public class RedisService {
      * @param score    分值
      * @param timeout  过期时间
      * @param timeUnit 时间单位
+     * @return 是否新增且设置过期时间成功
      */
-    public <T> void addToZSet(String key, T value, double score, long timeout, ChronoUnit timeUnit) {
+    public <T> boolean addToZSet(String key, T value, double score, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RScoredSortedSetAsync<T> sortedSet = batch.getScoredSortedSet(key);
+        RFuture<Boolean> add = sortedSet.addAsync(score, value);
+        RFuture<Boolean> expire = sortedSet.expireAsync(expireAt(timeout, timeUnit));
+        batch.execute();
+        return isTrue(add) && isTrue(expire);
+    }
+
+    /**
+     * 批量添加值到ZSet数据类型中，一条 ZADD 完成
+     *
+     * @param key    键
+     * @param values 值和分值
+     * @return 新增的数量
+     */
+    public <T> int addToZSet(String key, Map<T, Double> values) {
         RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
-        sortedSet.add(score, value);
-        sortedSet.expire(Instant.now().plus(timeout, timeUnit));
+        return sortedSet.addAll(values);
     }
 
     /**
@@ -413,6 +751,39 @@ public class RedisService {
         sortedSet.remove(value);
     }
 
+    public <T> CompletionStage<Boolean> addToZSetAsync(String key, T value, double score) {
+        RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
+        return sortedSet.addAsync(score, value);
+    }
+
+    public <T> CompletionStage<Boolean> addToZSetAsync(String key, T value, double score, long timeout, ChronoUnit timeUnit) {
+        RBatch batch = createAtomicBatch();
+        RScoredSortedSetAsync<T> sortedSet = batch.getScoredSortedSet(key);
+        RFuture<Boolean> add = sortedSet.addAsync(score, value);
+        RFuture<Boolean> expire = sortedSet.expireAsync(expireAt(timeout, timeUnit));
+        return batch.executeAsync().thenCompose(result -> add.thenCombine(expire, (added, expired) -> added && expired));
+    }
+
+    public <T> CompletionStage<Integer> addToZSetAsync(String key, Map<T, Double> values) {
+        RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
+        return sortedSet.addAllAsync(values);
+    }
+
+    public <T> CompletionStage<Collection<T>> getFromZSetAsync(String key, int start, int end) {
+        RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
+        return sortedSet.valueRangeAsync(start, end);
+    }
+
+    public <T> CompletionStage<Boolean> removeFromZSetAsync(String key, List<T> values) {
+        RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
+        return sortedSet.removeAllAsync(values);
+    }
+
+    public <T> CompletionStage<Boolean> removeFromZSetAsync(String key, T value) {
+        RScoredSortedSet<T> sortedSet = redissonClient.getScoredSortedSet(key);
+        return sortedSet.removeAsync(value);
+    }
+
     // ============================= Common ============================
 
     /**
@@ -432,9 +803,25 @@ public class RedisService {
      */
     public boolean remove(String key) {
         long delete = redissonClient.getKeys().delete(key);
+        nearCache.invalidate(key);
         return delete > 0;
     }
 
+    /**
+     * 批量删除Key，使用 UNLINK 在后台释放内存，集群模式下按slot分组发送
+     *
+     * @param keys 键
+     * @return 删除的数量
+     */
+    public long remove(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        long unlink = redissonClient.getKeys().unlink(keys.toArray(new String[0]));
+        nearCache.invalidate(keys);
+        return unlink;
+    }
+
     /**
      * 设置Key的过期时间
      *
@@ -444,7 +831,7 @@ public class RedisService {
      * @return 设置成功返回true，否则返回false
      */
     public boolean expire(String key, long timeout, ChronoUnit timeUnit) {
-        return redissonClient.getBucket(key).expire(Instant.now().plus(timeout, timeUnit));
+        return redissonClient.getBucket(key).expire(expireAt(timeout, timeUnit));
     }
 
     /**
@@ -478,7 +865,7 @@ public class RedisService {
      */
     public long decrement(String key, long delta) {
         RAtomicLong atomicLong = redissonClient.getAtomicLong(key);
-        return atomicLong.decrementAndGet();
+        return atomicLong.addAndGet(-delta);
     }
 
     /**
@@ -502,7 +889,99 @@ public class RedisService {
      */
     public double decrement(String key, double delta) {
         RAtomicDouble atomicDouble = redissonClient.getAtomicDouble(key);
-        return atomicDouble.decrementAndGet();
+        return atomicDouble.addAndGet(-delta);
+    }
+
+    public CompletionStage<Boolean> existsAsync(String key) {
+        return redissonClient.getBucket(key).isExistsAsync();
+    }
+
+    public CompletionStage<Long> removeAsync(String key) {
+        return invalidateOnComplete(redissonClient.getKeys().deleteAsync(key), key);
+    }
+
+    public CompletionStage<Long> removeAsync(Collection<String> keys) {
+        return invalidateOnComplete(redissonClient.getKeys().unlinkAsync(keys.toArray(new String[0])), keys);
+    }
+
+    public CompletionStage<Boolean> expireAsync(String key, long timeout, ChronoUnit timeUnit) {
+        return redissonClient.getBucket(key).expireAsync(expireAt(timeout, timeUnit));
+    }
+
+    public CompletionStage<Long> getExpireAsync(String key) {
+        return redissonClient.getBucket(key).getExpireTimeAsync();
+    }
+
+    public CompletionStage<Long> incrementAsync(String key, long delta) {
+        return redissonClient.getAtomicLong(key).addAndGetAsync(delta);
+    }
+
+    public CompletionStage<Long> decrementAsync(String key, long delta) {
+        return redissonClient.getAtomicLong(key).addAndGetAsync(-delta);
+    }
+
+    public CompletionStage<Double> incrementAsync(String key, double delta) {
+        return redissonClient.getAtomicDouble(key).addAndGetAsync(delta);
+    }
+
+    public CompletionStage<Double> decrementAsync(String key, double delta) {
+        return redissonClient.getAtomicDouble(key).addAndGetAsync(-delta);
+    }
+
+    // ============================= Batch ============================
+
+    /**
+     * 在一次往返内执行多条命令，commands 中通过 RBatch 获取对象并调用 xxxAsync 方法
+     * <pre>
+     *     redisService.executeBatch(batch -> {
+     *         batch.getBucket("a").setAsync(1);
+     *         batch.getMap("b").fastPutAsync("f", 2);
+     *     });
+     * </pre>
+     * 写入命中 near-cache.prefixes 的key时需要自行调用 NearCache.invalidate
+     *
+     * @param commands 命令
+     * @return 每条命令的结果，顺序与添加顺序一致
+     */
+    public BatchResult<?> executeBatch(Consumer<RBatch> commands) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        commands.accept(batch);
+        return batch.execute();
+    }
+
+    public CompletionStage<BatchResult<?>> executeBatchAsync(Consumer<RBatch> commands) {
+        RBatch batch = redissonClient.createBatch(BatchOptions.defaults());
+        commands.accept(batch);
+        return batch.executeAsync();
+    }
+
+    /**
+     * 写入与过期时间放在同一个 MULTI/EXEC 中，一次往返且不会出现没有过期时间的中间状态
+     */
+    private RBatch createAtomicBatch() {
+        return redissonClient.createBatch(BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC));
+    }
+
+    private <R> CompletionStage<R> invalidateOnComplete(RFuture<R> future, String key) {
+        return invalidateOnComplete(future, Collections.singletonList(key));
+    }
+
+    /**
+     * 写入完成后删除本地缓存并异步通知其它节点，返回的 stage 在本地缓存删除之后才完成，
+     * 调用方在完成回调中读到的不会是旧值。
+     * 回调切换到公共线程池执行：RFuture 在 redisson-netty 线程上完成，那里不能调用同步方法，
+     * 删除本地缓存时也可能要等待正在回源的线程，不能阻塞 netty 线程
+     */
+    private <R> CompletionStage<R> invalidateOnComplete(RFuture<R> future, Collection<String> keys) {
+        return future.whenCompleteAsync((r, e) -> nearCache.invalidateAsync(keys));
+    }
+
+    private static Instant expireAt(long timeout, ChronoUnit timeUnit) {
+        return Instant.now().plus(timeout, timeUnit);
+    }
+
+    private static boolean isTrue(RFuture<Boolean> future) {
+        return Boolean.TRUE.equals(future.toCompletableFuture().join());
     }
 
 }
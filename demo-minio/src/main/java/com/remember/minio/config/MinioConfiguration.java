@@ -1,12 +1,19 @@
 package com.remember.minio.config;
 
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import com.remember.minio.properties.MinioProperties;
+import com.remember.minio.utils.MultipartMinioClient;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
 import lombok.RequiredArgsConstructor;
+import okhttp3.Dispatcher;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.*;
+
 /**
  * @author wangjiahao
  * @date 2022/8/24 21:46
@@ -26,4 +33,50 @@ public class MinioConfiguration {
                 .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
                 .build();
     }
+
+    /**
+     * 分片上传使用的客户端，okhttp 默认每个host最多5个并发请求，这里按上传并发数放开
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.minio", value = "enabled", matchIfMissing = true)
+    public MultipartMinioClient multipartMinioClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(64, minioProperties.getUploadParallelism() * 2));
+        dispatcher.setMaxRequestsPerHost(Math.max(5, minioProperties.getUploadParallelism() * 2));
+        long timeout = TimeUnit.MINUTES.toMillis(5);
+        MinioAsyncClient client = MinioAsyncClient.builder()
+                .endpoint(minioProperties.getEndpoint())
+                .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .httpClient(HttpUtils.newDefaultHttpClient(timeout, timeout, timeout).newBuilder().dispatcher(dispatcher).build())
+                .build();
+        return new MultipartMinioClient(client);
+    }
+
+    /**
+     * 分片上传线程池，每个上传任务通过信号量限制自己的并发分片数，队列满时由调用线程执行
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService minioUploadExecutor() {
+        int threads = minioProperties.getUploadParallelism() * 2;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                ThreadFactoryBuilder.create().setNamePrefix("minio-upload-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 批量删除线程池，并发数由调用方的信号量控制
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService minioDeleteExecutor() {
+        int threads = minioProperties.getDeleteParallelism();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4),
+                ThreadFactoryBuilder.create().setNamePrefix("minio-delete-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
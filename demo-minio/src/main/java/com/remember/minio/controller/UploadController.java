@@ -9,6 +9,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
 /**
  * @author wangjiahao
  * @date 2020/5/31
@@ -42,6 +45,17 @@ public class UploadController {
         return minioService.uploadFile(base64Uploader);
     }
 
+    /**
+     * base64上传，请求体直接是 base64 或 data:xxx;base64,xxx 文本，边读边解码上传
+     *
+     * @param request 请求
+     * @return return
+     */
+    @PostMapping("uploadBase64Stream")
+    public R uploadBase64Stream(HttpServletRequest request) throws IOException {
+        return minioService.uploadBase64(request.getInputStream());
+    }
+
     /**
      * getDefaultBucket
      * 删除文件
@@ -0,0 +1,165 @@
+package com.remember.minio.entity;
+
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 边读边解码的base64文件
+ * <p>
+ * 只解析开头的 data uri(如 data:image/png;base64,)，内容通过 Base64 解码流按需读取，
+ * 不会把整个 base64 字符串或解码后的文件放进一个数组
+ * <p>
+ * data uri 格式不正确或类型不在白名单内时抛出 IllegalArgumentException，扩展名取自白名单而不是客户端传的类型
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Getter
+public class Base64DecodedStream {
+
+    /**
+     * 没有 data uri 时的默认类型，与原来的 base64 上传保持一致
+     */
+    public static final String DEFAULT_DATA_URI = "data:image/jpg;base64";
+
+    /**
+     * data uri 的最大长度
+     */
+    private static final int MAX_DATA_URI_LENGTH = 256;
+
+    private static final String DATA_URI_PREFIX = "data:";
+
+    private static final String BASE64_SUFFIX = ";base64";
+
+    /**
+     * 允许上传的类型 -> 扩展名
+     */
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpg", "jpg",
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/bmp", "bmp",
+            "image/webp", "webp"
+    );
+
+    private final String extension;
+
+    private final String contentType;
+
+    /**
+     * 解码后的文件流
+     */
+    private final InputStream inputStream;
+
+    private Base64DecodedStream(String dataUri, InputStream base64) {
+        String uri = dataUri.trim().toLowerCase(Locale.ROOT);
+        if (!uri.startsWith(DATA_URI_PREFIX) || !uri.endsWith(BASE64_SUFFIX)) {
+            throw new IllegalArgumentException("不支持的 data uri: " + dataUri);
+        }
+        // 忽略 charset 等参数，只取媒体类型
+        String mediaType = uri.substring(DATA_URI_PREFIX.length(), uri.length() - BASE64_SUFFIX.length());
+        int semicolon = mediaType.indexOf(';');
+        this.contentType = semicolon < 0 ? mediaType : mediaType.substring(0, semicolon);
+        this.extension = EXTENSIONS.get(contentType);
+        if (extension == null) {
+            throw new IllegalArgumentException("不支持的文件类型: " + contentType);
+        }
+        // mime 解码器会忽略换行等非base64字符，请求体末尾带换行时也能正常解码
+        this.inputStream = Base64.getMimeDecoder().wrap(base64);
+    }
+
+    /**
+     * 从请求体读取，请求体为 base64 或 data:xxx;base64,xxx
+     *
+     * @param body 请求体
+     * @return 解码流
+     * @throws IllegalArgumentException data uri 格式不正确或类型不支持
+     */
+    public static Base64DecodedStream of(InputStream body) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body);
+        in.mark(MAX_DATA_URI_LENGTH);
+        byte[] head = new byte[MAX_DATA_URI_LENGTH];
+        int n = in.readNBytes(head, 0, head.length);
+        String text = new String(head, 0, n, StandardCharsets.US_ASCII);
+        int comma = text.indexOf(',');
+        in.reset();
+        if (text.startsWith(DATA_URI_PREFIX)) {
+            if (comma < 0) {
+                throw new IllegalArgumentException("data uri 缺少逗号或超过 " + MAX_DATA_URI_LENGTH + " 个字符");
+            }
+            in.skipNBytes(comma + 1);
+            return new Base64DecodedStream(text.substring(0, comma), in);
+        }
+        return new Base64DecodedStream(DEFAULT_DATA_URI, in);
+    }
+
+    /**
+     * 从已经在内存中的字符串读取，直接按字符读取原字符串，不再拆分和复制
+     *
+     * @param data base64 或 data:xxx;base64,xxx
+     * @return 解码流
+     * @throws IllegalArgumentException data uri 格式不正确或类型不支持
+     */
+    public static Base64DecodedStream of(String data) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("base64 为空");
+        }
+        int comma = data.indexOf(',');
+        if (data.startsWith(DATA_URI_PREFIX)) {
+            if (comma < 0) {
+                throw new IllegalArgumentException("data uri 缺少逗号");
+            }
+            return new Base64DecodedStream(data.substring(0, comma), new AsciiInputStream(data, comma + 1));
+        }
+        return new Base64DecodedStream(DEFAULT_DATA_URI, new AsciiInputStream(data, 0));
+    }
+
+    /**
+     * 把 base64 字符串当作 ascii 字节流读取
+     */
+    private static class AsciiInputStream extends InputStream {
+
+        private final String data;
+
+        private int position;
+
+        AsciiInputStream(String data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length() ? data.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= data.length()) {
+                return -1;
+            }
+            int n = Math.min(len, data.length() - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) data.charAt(position + i);
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return data.length() - position;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.remember.minio.properties;
 
+import com.remember.minio.constant.MinioConstant;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -21,4 +22,16 @@ public class MinioProperties implements Serializable {
     private String secretKey;
     private String domain;
     private Long expiry;
+    /**
+     * 分片上传每片的大小(字节)，最小5MB，最多10000片
+     */
+    private Long partSize = (long) MinioConstant.DEFAULT_CHUNK_SIZE;
+    /**
+     * 单个文件同时上传的分片数，内存占用约为 partSize * (uploadParallelism + 1)
+     */
+    private Integer uploadParallelism = 4;
+    /**
+     * 批量删除时同时执行的 DeleteObjects 请求数，每个请求最多1000个文件
+     */
+    private Integer deleteParallelism = 4;
 }
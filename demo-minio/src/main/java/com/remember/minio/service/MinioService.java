@@ -4,6 +4,8 @@ import com.remember.common.entity.R;
 import com.remember.minio.entity.Base64Uploader;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+
 /**
  * @author wangjiahao
  */
@@ -25,6 +27,14 @@ public interface MinioService {
      */
     R uploadFile(Base64Uploader base64Uploader);
 
+    /**
+     * base64请求体上传，不把请求体读入内存
+     *
+     * @param body base64 或 data:xxx;base64,xxx
+     * @return /
+     */
+    R uploadBase64(InputStream body);
+
     /**
      * 删除文件
      *
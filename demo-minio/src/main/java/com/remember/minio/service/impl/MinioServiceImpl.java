@@ -1,10 +1,11 @@
 package com.remember.minio.service.impl;
 
 
+import cn.hutool.core.lang.UUID;
 import cn.hutool.core.util.ObjectUtil;
 import com.remember.common.entity.R;
 import com.remember.common.entity.REnum;
-import com.remember.minio.entity.Base64DecodedMultipartFile;
+import com.remember.minio.entity.Base64DecodedStream;
 import com.remember.minio.entity.Base64Uploader;
 import com.remember.minio.entity.MinioResponse;
 import com.remember.minio.properties.MinioProperties;
@@ -16,6 +17,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 
 /**
  * @author wangjiahao
@@ -55,19 +58,40 @@ public class MinioServiceImpl implements MinioService {
      */
     @Override
     public R uploadFile(Base64Uploader base64Uploader) {
-        final String[] base64Array = base64Uploader.getData().split(",");
-        String dataUir;
-        String data;
-        if (base64Array.length > 1) {
-            dataUir = base64Array[0];
-            data = base64Array[1];
-        } else {
-            //根据你base64代表的具体文件构建
-            dataUir = "data:image/jpg;base64";
-            data = base64Array[0];
+        try {
+            return uploadFile(Base64DecodedStream.of(base64Uploader.getData()));
+        } catch (IllegalArgumentException e) {
+            log.warn("base64格式不正确 {}", e.getMessage());
+            return R.fail(REnum.A0701);
+        }
+    }
+
+    /**
+     * base64请求体上传，边读边解码，每个请求最多占用一个分片大小的缓冲区
+     *
+     * @param body base64 或 data uri
+     * @return /
+     */
+    @Override
+    public R uploadBase64(InputStream body) {
+        try {
+            return uploadFile(Base64DecodedStream.of(body));
+        } catch (IllegalArgumentException e) {
+            log.warn("base64格式不正确 {}", e.getMessage());
+            return R.fail(REnum.A0701);
+        } catch (IOException e) {
+            log.error("读取base64请求体异常 {}", e.getMessage());
+            return R.fail(REnum.A0700);
         }
-        MultipartFile multipartFile = new Base64DecodedMultipartFile(data, dataUir);
-        return uploadFile(multipartFile);
+    }
+
+    /**
+     * 解码后的大小未知，由 minio 按分片大小读取上传
+     */
+    private R uploadFile(Base64DecodedStream stream) {
+        String filename = LocalDate.now() + "/" + UUID.randomUUID(true) + "." + stream.getExtension();
+        final MinioResponse upload = minioUtils.upload(stream.getInputStream(), minioProperties.getDefaultBucket(), filename, stream.getContentType(), -1L);
+        return upload != null && upload.stats() ? R.success(upload.stats()) : R.fail(REnum.A0500);
     }
 
     @Override
@@ -1,59 +1,109 @@
 package com.remember.minio.utils;
 
-import java.io.File;
+import cn.hutool.core.util.HexUtil;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
+ * 文件拆分与合并
+ * <p>
+ * 基于 FileChannel.transferTo/transferFrom 按位置拷贝，数据不经过java堆，
+ * 各分片使用并行流同时处理，共享的 FileChannel 只做按位置读写，可以多线程使用
+ *
  * @author fly
  */
+@Slf4j
 public class FileSplitUtil {
 
+    /**
+     * 计算校验和时每次映射的大小
+     */
+    private static final long MAP_SIZE = 64L * 1024 * 1024;
 
     /**
-     * 文件拆分
+     * 分片范围
+     */
+    @Value
+    public static class FilePart {
+        /**
+         * 分片序号，从0开始
+         */
+        int index;
+        /**
+         * 在源文件中的偏移量
+         */
+        long offset;
+        /**
+         * 分片大小
+         */
+        long length;
+    }
+
+    /**
+     * 按固定大小计算分片范围，最后一片为剩余部分
      *
-     * @param file
-     * @param count
+     * @param length   文件大小
+     * @param partSize 分片大小
+     * @return 分片范围
      */
-    public static List<Long> getSplitFile(String file, int count, long partSize) {
-        //预分配文件所占用的磁盘空间，在磁盘创建一个指定大小的文件，“r”表示只读，“rw”支持随机读写
-        List<Long> fileSize = new ArrayList<Long>();
-        try {
-            RandomAccessFile raf = new RandomAccessFile(new File(file), "r");
-            // 计算文件大小
-            long length = raf.length();
-            System.out.println(length);
-            // 计算文件切片后每一份文件的大小
-//            long maxSize = length / count;
-//            System.out.println(partSize);
+    public static List<FilePart> plan(long length, long partSize) {
+        int count = (int) Math.max(1, (length + partSize - 1) / partSize);
+        return plan(length, count, partSize);
+    }
 
-            // 定义初始文件的偏移量(读取进度)
-            long offset = 0L;
-            // 开始切割文件
-            // count-1最后一份文件不处理
-            for (int i = 0; i < count - 1; i++) {
-                // 标记初始化
-                long fbegin = offset;
-                // 分割第几份文件
-                long fend = (i + 1) * partSize;
-                // 写入文件
-                offset = getWrite(file, i, fbegin, fend);
-                fileSize.add(partSize);
-            }
+    /**
+     * 计算分片范围，前 count-1 片大小为 partSize，剩余部分全部放入最后一片
+     *
+     * @param length   文件大小
+     * @param count    分片数
+     * @param partSize 分片大小
+     * @return 分片范围
+     */
+    public static List<FilePart> plan(long length, int count, long partSize) {
+        List<FilePart> parts = new ArrayList<>(count);
+        long offset = 0L;
+        for (int i = 0; i < count - 1 && offset + partSize < length; i++) {
+            parts.add(new FilePart(i, offset, partSize));
+            offset += partSize;
+        }
+        parts.add(new FilePart(parts.size(), offset, length - offset));
+        return parts;
+    }
 
-            // 剩余部分文件写入到最后一份(如果不能平平均分配的时候)
-            if (length - offset > 0) {
-                // 写入文件
-                long write = getWrite(file, count - 1, offset, length);
-                fileSize.add(write - offset);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 文件拆分，分片写入 {file}_{index}.tmp
+     *
+     * @param file     源文件
+     * @param count    分片数
+     * @param partSize 分片大小
+     * @return 各分片大小
+     */
+    public static List<Long> getSplitFile(String file, int count, long partSize) {
+        try (FileChannel in = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            List<FilePart> parts = plan(in.size(), count, partSize);
+            parts.parallelStream().forEach(part -> transfer(in, part.getOffset(), part.getLength(), partPath(file, part.getIndex())));
+            return parts.stream().map(FilePart::getLength).collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            log.error("文件拆分失败 {}", file, e);
+            return new ArrayList<>();
         }
-        return fileSize;
     }
 
     /**
@@ -61,78 +111,117 @@ public class FileSplitUtil {
      *
      * @param file  源文件
      * @param index 源文件的顺序标识
-     * @param begin 开始指针的位置
-     * @param end   结束指针的位置
-     * @return long
+     * @param begin 开始位置(包含)
+     * @param end   结束位置(不包含)
+     * @return 结束位置
      */
     public static long getWrite(String file, int index, long begin, long end) {
-        long endPointer = 0L;
-        try {
-            // 申明文件切割后的文件磁盘
-            RandomAccessFile in = new RandomAccessFile(new File(file), "r");
-            // 定义一个可读，可写的文件并且后缀名为.tmp的二进制文件
-            String filename = file + "_" + index + ".tmp";
-            RandomAccessFile out = new RandomAccessFile(new File(filename), "rw");
-
-            // 申明具体每一文件的字节数组
-            byte[] b = new byte[1024];
-            int n = 0;
-            // 从指定位置读取文件字节流
-            in.seek(begin);
-            // 判断文件流读取的边界
-            while (in.getFilePointer() <= end && (n = in.read(b)) != -1) {
-                //从指定每一份文件的范围，写入不同的文件
-                out.write(b, 0, n);
-            }
-
-            // 定义当前读取文件的指针
-            endPointer = in.getFilePointer();
-
-            // 关闭输入流
-            in.close();
-            // 关闭输出流
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+        try (FileChannel in = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long length = Math.min(end, in.size()) - begin;
+            transfer(in, begin, length, partPath(file, index));
+            return begin + length;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("文件拆分失败 {}_{}", file, index, e);
+            return 0L;
         }
-
-        return endPointer;
     }
 
     /**
-     * 文件合并
+     * 文件合并，各分片按偏移量并行写入目标文件
      *
      * @param file      指定合并文件
      * @param tempFile  分割前的文件名
      * @param tempCount 文件个数
+     * @return 合并后文件的md5，失败时返回null
      */
-    public static void merge(String file, String tempFile, int tempCount) {
-        RandomAccessFile raf = null;
+    public static String merge(String file, String tempFile, int tempCount) {
         try {
-            //申明随机读取文件RandomAccessFile
-            raf = new RandomAccessFile(new File(file), "rw");
-            //开始合并文件，对应切片的二进制文件
+            List<Path> parts = IntStream.range(0, tempCount).mapToObj(i -> partPath(tempFile, i)).collect(Collectors.toList());
+            long[] offsets = new long[tempCount];
+            long total = 0L;
             for (int i = 0; i < tempCount; i++) {
-                //读取切片文件
-                RandomAccessFile reader = new RandomAccessFile(new File(tempFile + "_" + i + ".tmp"), "r");
-                byte[] b = new byte[1024];
-                int n = 0;
-                while ((n = reader.read(b)) != -1) {
-                    //一边读，一边写
-                    raf.write(b, 0, n);
+                offsets[i] = total;
+                total += Files.size(parts.get(i));
+            }
+            try (FileChannel out = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // transferFrom 不会写入超过当前文件大小的位置，先把文件扩展到最终大小
+                if (total > 0) {
+                    out.write(ByteBuffer.wrap(new byte[1]), total - 1);
                 }
+                IntStream.range(0, tempCount).parallel().forEach(i -> {
+                    try (FileChannel in = FileChannel.open(parts.get(i), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long written = 0L;
+                        while (written < size) {
+                            long n = out.transferFrom(in, offsets[i] + written, size - written);
+                            if (n <= 0) {
+                                throw new EOFException("分片文件被截断 " + parts.get(i));
+                            }
+                            written += n;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.force(false);
+                return checksum(out);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                raf.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        } catch (IOException | UncheckedIOException e) {
+            log.error("文件合并失败 {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 计算文件md5，按 MAP_SIZE 分段内存映射读取
+     *
+     * @param file 文件
+     * @return md5
+     */
+    public static String checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return checksum(channel);
+        }
+    }
+
+    private static String checksum(FileChannel channel) throws IOException {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long size = channel.size();
+        for (long position = 0; position < size; position += MAP_SIZE) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position));
+            md5.update(buffer);
+        }
+        return HexUtil.encodeHexStr(md5.digest());
+    }
+
+    /**
+     * 把源文件 [position, position + length) 写入目标文件
+     */
+    private static void transfer(FileChannel in, long position, long length, Path target) {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long written = 0L;
+            while (written < length) {
+                long n = in.transferTo(position + written, length - written, out);
+                if (n <= 0) {
+                    throw new EOFException("源文件被截断");
+                }
+                written += n;
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    private static Path partPath(String file, int index) {
+        return Paths.get(file + "_" + index + ".tmp");
+    }
+
     public static void main(String[] args) throws IOException {
         /**
          * 第一步
@@ -148,14 +237,7 @@ public class FileSplitUtil {
          */
         //3.根据实际的需求合并指定数量的文件
         String mergeFile = "/Users/fly/Downloads/nonono_temp.mp4";
-        merge(mergeFile, file, count);
-
-//        UploadObjectArgs.builder().filename("",maxsize).build();
-//        ComposeObjectArgs.builder().sources("").build();
-//        PutObjectArgs.builder().stream().build();
-
-
-
-
+        String md5 = merge(mergeFile, file, count);
+        log.info("合并结果与源文件一致: {}", md5 != null && md5.equals(checksum(Paths.get(file))));
     }
 }
@@ -5,8 +5,11 @@ import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.UUID;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.text.StrPool;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.HttpUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.remember.minio.entity.MinioResponse;
@@ -15,24 +18,31 @@ import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.Part;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author wangjiahao
@@ -60,12 +70,32 @@ public class MinioUtils {
     public static final String CHUNK_UPLOAD_SUCCESS = "块文件上传成功";
     public static final String MERGE_FAIL = "合并失败";
     public static final String MERGE_SUCCESS = "合并成功";
+    /**
+     * S3 分片限制
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 1024L * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+    /**
+     * 单个 DeleteObjects 请求最多删除的文件数
+     */
+    private static final int MAX_DELETE_KEYS = 1000;
     private final MinioClient minioClient;
+    private final MultipartMinioClient multipartMinioClient;
+    private final ExecutorService uploadExecutor;
+    private final ExecutorService deleteExecutor;
     private final MinioProperties minioProperties;
 
-    public MinioUtils(@Autowired(required = false) MinioClient minioClient, MinioProperties minioProperties) {
+    public MinioUtils(@Autowired(required = false) MinioClient minioClient,
+                      @Autowired(required = false) MultipartMinioClient multipartMinioClient,
+                      @Qualifier("minioUploadExecutor") ExecutorService uploadExecutor,
+                      @Qualifier("minioDeleteExecutor") ExecutorService deleteExecutor,
+                      MinioProperties minioProperties) {
         this.minioProperties = minioProperties;
         this.minioClient = minioClient;
+        this.multipartMinioClient = multipartMinioClient;
+        this.uploadExecutor = uploadExecutor;
+        this.deleteExecutor = deleteExecutor;
     }
 
     /**
@@ -177,8 +207,19 @@ public class MinioUtils {
         return upload(file, bucket, file.getName(), file.length());
     }
 
+    /**
+     * 超过一个分片大小的文件走并发分片上传
+     */
     public MinioResponse upload(File file, String bucket, String filename, Long fileSize) {
-        return upload(FileUtil.getInputStream(file), bucket, filename, fileSize);
+        if (fileSize > partSize()) {
+            return uploadMultipart(file.toPath(), bucket, filename);
+        }
+        try (InputStream in = FileUtil.getInputStream(file)) {
+            return upload(in, bucket, filename, fileSize);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -210,12 +251,9 @@ public class MinioUtils {
      */
     public MinioResponse upload(InputStream fileInputStream, String bucket, String filename, String contentType, Long fileSize) {
         try {
-            PutObjectArgs objectArgs = PutObjectArgs.builder().bucket(bucket).object(filename).stream(fileInputStream, fileSize, CharSequenceUtil.INDEX_NOT_FOUND).contentType(contentType).build();
+            PutObjectArgs objectArgs = PutObjectArgs.builder().bucket(bucket).object(filename).stream(fileInputStream, fileSize, partSize()).contentType(contentType).build();
             ObjectWriteResponse o = minioClient.putObject(objectArgs);
-
-            String urlBuilder = (CharSequenceUtil.isBlank(minioProperties.getDomain()) ? minioProperties.getEndpoint() : minioProperties.getDomain()) +
-                    FILE_SEPARATOR + bucket + FILE_SEPARATOR + filename;
-            return new MinioResponse(o, true, urlBuilder);
+            return new MinioResponse(o, true, objectUrl(bucket, filename));
         } catch (Exception e) {
             log.error(e.getMessage());
             return null;
@@ -273,10 +311,27 @@ public class MinioUtils {
             for (String url : fileUrls) {
                 sourceObjectList.add(ComposeSource.builder().bucket(bucket).object(url).build());
             }
+            return composeObjectBySources(bucket, objectName, sourceObjectList);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按 ComposeSource 合并，合并在服务端完成
+     *
+     * @param bucket     桶名称
+     * @param objectName 文件名称
+     * @param sources    源对象或源对象的范围
+     * @return /
+     */
+    public ObjectWriteResponse composeObjectBySources(String bucket, String objectName, List<ComposeSource> sources) {
+        try {
             ComposeObjectArgs build = ComposeObjectArgs.builder()
                     .bucket(bucket)
                     .object(objectName)
-                    .sources(sourceObjectList)
+                    .sources(sources)
                     .build();
             return minioClient.composeObject(build);
         } catch (Exception e) {
@@ -315,13 +370,253 @@ public class MinioUtils {
     }
 
     /**
+     * 下载远程文件并上传，响应流直接按分片上传，不写入本地临时文件
+     *
      * @param url    需要下载的文件地址
      * @param bucket 桶名称
      * @return 保存结果
      */
     public MinioResponse upload(String url, String bucket) {
-        File file = HttpUtil.downloadFileFromUrl(url, FileUtil.getTmpDirPath());
-        return upload(file, bucket);
+        String filename = FileUtil.getName(URLUtil.getPath(url));
+        if (CharSequenceUtil.isBlank(filename)) {
+            filename = UUID.randomUUID(true).toString();
+        }
+        try (HttpResponse response = HttpRequest.get(url).executeAsync()) {
+            if (!response.isOk()) {
+                log.error("下载文件失败 {}, status {}", url, response.getStatus());
+                return null;
+            }
+            long length = response.contentLength();
+            if (length >= 0 && length <= partSize()) {
+                return upload(response.bodyStream(), bucket, filename, length);
+            }
+            return uploadMultipart(response.bodyStream(), bucket, filename, getMimeType(filename));
+        }
+    }
+
+    /**
+     * 分片上传，从流中按 partSize 读取，最多 uploadParallelism 个分片同时上传，
+     * 内存占用约为 partSize * (uploadParallelism + 1)，不需要知道文件大小，也不落本地磁盘
+     *
+     * @param in          文件流，调用方负责关闭
+     * @param bucket      桶名称
+     * @param filename    文件名称
+     * @param contentType 文件类型
+     * @return 保存结果，失败时返回null并取消本次分片上传；需要续传时使用传入 uploadId 的重载
+     */
+    public MinioResponse uploadMultipart(InputStream in, String bucket, String filename, String contentType) {
+        String uploadId = null;
+        try {
+            uploadId = createMultipartUpload(bucket, filename, contentType);
+            ObjectWriteResponse o = uploadMultipart(in, bucket, filename, uploadId);
+            return new MinioResponse(o, true, objectUrl(bucket, filename));
+        } catch (Exception e) {
+            log.error("分片上传失败 {}, uploadId {}, {}", filename, uploadId, e.getMessage());
+            abortQuietly(bucket, filename, uploadId);
+            return null;
+        }
+    }
+
+    /**
+     * 分片上传本地文件，各分片按位置从 FileChannel 读取
+     *
+     * @param file     文件
+     * @param bucket   桶名称
+     * @param filename 文件名称
+     * @return 保存结果，失败时返回null并取消本次分片上传；需要续传时使用传入 uploadId 的重载
+     */
+    public MinioResponse uploadMultipart(Path file, String bucket, String filename) {
+        String uploadId = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            uploadId = createMultipartUpload(bucket, filename, getMimeType(filename));
+            ObjectWriteResponse o = uploadMultipart(channel, bucket, filename, uploadId);
+            return new MinioResponse(o, true, objectUrl(bucket, filename));
+        } catch (Exception e) {
+            log.error("分片上传失败 {}, uploadId {}, {}", filename, uploadId, e.getMessage());
+            abortQuietly(bucket, filename, uploadId);
+            return null;
+        }
+    }
+
+    /**
+     * 创建分片上传，调用方保存 uploadId 后可在失败时续传
+     *
+     * @param bucket      桶名称
+     * @param objectName  文件名称
+     * @param contentType 文件类型
+     * @return uploadId
+     */
+    public String createMultipartUpload(String bucket, String objectName, String contentType) throws Exception {
+        return requireMultipartClient().createMultipartUpload(bucket, objectName, contentType);
+    }
+
+    /**
+     * 按 uploadId 上传流中的全部分片并合并，
+     * 续传时传入同一个 uploadId 和从头开始的流，已上传且md5一致的分片不会重复上传
+     *
+     * @param in         文件流
+     * @param bucket     桶名称
+     * @param objectName 文件名称
+     * @param uploadId   createMultipartUpload 返回的id
+     * @return 合并结果
+     */
+    public ObjectWriteResponse uploadMultipart(InputStream in, String bucket, String objectName, String uploadId) throws Exception {
+        long partSize = partSize();
+        return uploadParts(bucket, objectName, uploadId, partNumber -> {
+            byte[] buffer = new byte[(int) partSize];
+            int n = in.readNBytes(buffer, 0, buffer.length);
+            if (n == 0 && partNumber > 1) {
+                return null;
+            }
+            return n == buffer.length ? buffer : Arrays.copyOf(buffer, n);
+        });
+    }
+
+    /**
+     * 按 uploadId 上传文件的全部分片并合并，续传语义同流式上传
+     *
+     * @param channel    文件
+     * @param bucket     桶名称
+     * @param objectName 文件名称
+     * @param uploadId   createMultipartUpload 返回的id
+     * @return 合并结果
+     */
+    public ObjectWriteResponse uploadMultipart(FileChannel channel, String bucket, String objectName, String uploadId) throws Exception {
+        long partSize = partSize();
+        long size = channel.size();
+        return uploadParts(bucket, objectName, uploadId, partNumber -> {
+            long position = (partNumber - 1) * partSize;
+            if (position >= size && partNumber > 1) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(partSize, size - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("文件在上传过程中被截断");
+                }
+            }
+            return buffer.array();
+        });
+    }
+
+    /**
+     * 取消分片上传并删除已上传的分片
+     */
+    public void abortMultipartUpload(String bucket, String objectName, String uploadId) throws Exception {
+        requireMultipartClient().abortMultipartUpload(bucket, objectName, uploadId);
+    }
+
+    /**
+     * 取消内部创建的分片上传，避免失败后残留的分片一直占用存储
+     */
+    private void abortQuietly(String bucket, String objectName, String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            abortMultipartUpload(bucket, objectName, uploadId);
+        } catch (Exception e) {
+            log.error("取消分片上传失败 {}, uploadId {}, {}", objectName, uploadId, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取分片，返回null表示没有更多分片
+     */
+    @FunctionalInterface
+    private interface PartReader {
+        byte[] read(int partNumber) throws IOException;
+    }
+
+    /**
+     * 在调用线程按序读取分片，交给上传线程池并发上传，信号量限制同时在内存中的分片数
+     */
+    private ObjectWriteResponse uploadParts(String bucket, String objectName, String uploadId, PartReader reader) throws Exception {
+        MultipartMinioClient client = requireMultipartClient();
+        long partSize = partSize();
+        Map<Integer, String> uploaded = new HashMap<>();
+        for (Part part : client.listParts(bucket, objectName, uploadId)) {
+            uploaded.put(part.partNumber(), MultipartMinioClient.trimEtag(part.etag()));
+        }
+
+        Semaphore permits = new Semaphore(minioProperties.getUploadParallelism());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Part>> futures = new ArrayList<>();
+        int partNumber = 0;
+        byte[] data;
+        do {
+            if (++partNumber > MAX_PARTS) {
+                throw new IllegalArgumentException("分片数超过" + MAX_PARTS + "，请调大 spring.minio.part-size");
+            }
+            data = reader.read(partNumber);
+            if (data == null) {
+                break;
+            }
+            permits.acquire();
+            if (failure.get() != null) {
+                permits.release();
+                break;
+            }
+            int number = partNumber;
+            byte[] part = data;
+            CompletableFuture<Part> future = CompletableFuture.supplyAsync(
+                    () -> uploadPart(client, bucket, objectName, uploadId, number, part, uploaded.get(number)), uploadExecutor);
+            future.whenComplete((p, e) -> {
+                permits.release();
+                if (e != null) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            futures.add(future);
+        } while (data.length == partSize);
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+        Part[] parts = futures.stream().map(CompletableFuture::join).toArray(Part[]::new);
+        return client.completeMultipartUpload(bucket, objectName, uploadId, parts);
+    }
+
+    /**
+     * 上传单个分片，md5 与已上传分片的 etag 相同时跳过
+     */
+    private Part uploadPart(MultipartMinioClient client, String bucket, String objectName, String uploadId,
+                            int partNumber, byte[] data, String uploadedEtag) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(data);
+            String md5 = HexUtil.encodeHexStr(digest);
+            if (md5.equalsIgnoreCase(uploadedEtag)) {
+                log.debug("分片 {} 已上传, 跳过 {}", partNumber, objectName);
+                return new Part(partNumber, uploadedEtag);
+            }
+            String etag = client.uploadPart(bucket, objectName, uploadId, partNumber, data, Base64.getEncoder().encodeToString(digest));
+            return new Part(partNumber, etag);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private MultipartMinioClient requireMultipartClient() {
+        if (multipartMinioClient == null) {
+            throw new IllegalStateException("minio未启用");
+        }
+        return multipartMinioClient;
+    }
+
+    private long partSize() {
+        long partSize = minioProperties.getPartSize();
+        if (partSize < MIN_PART_SIZE || partSize > MAX_PART_SIZE) {
+            throw new IllegalArgumentException("spring.minio.part-size 需要在5MB到1GB之间");
+        }
+        return partSize;
+    }
+
+    private String objectUrl(String bucket, String filename) {
+        return (CharSequenceUtil.isBlank(minioProperties.getDomain()) ? minioProperties.getEndpoint() : minioProperties.getDomain()) +
+                FILE_SEPARATOR + bucket + FILE_SEPARATOR + filename;
     }
 
     /**
@@ -412,7 +707,7 @@ public class MinioUtils {
     }
 
     /**
-     * 根据文件前缀查询文件
+     * 根据文件前缀查询文件，结果全部放入内存，文件较多时使用 streamObjects
      *
      * @param bucketName 存储桶名称
      * @param prefix     前缀
@@ -421,12 +716,7 @@ public class MinioUtils {
      */
     public List<Item> getAllObjectsByPrefix(String bucketName, String prefix, boolean recursive) throws Exception {
         List<Item> list = new ArrayList<>();
-        ListObjectsArgs listObjectsArgs = ListObjectsArgs.builder()
-                .bucket(bucketName)
-                .prefix(prefix)
-                .recursive(recursive)
-                .build();
-        Iterable<Result<Item>> objectsIterator = minioClient.listObjects(listObjectsArgs);
+        Iterable<Result<Item>> objectsIterator = listObjects(bucketName, prefix, recursive);
         if (objectsIterator != null) {
             for (Result<Item> o : objectsIterator) {
                 Item item = o.get();
@@ -436,6 +726,25 @@ public class MinioUtils {
         return list;
     }
 
+    /**
+     * 根据文件前缀惰性查询文件，每次向服务端请求一页(1000个)，消费完当前页才请求下一页
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param recursive  是否使用递归查询
+     * @return 文件流，列举失败时抛出 IllegalStateException
+     */
+    public Stream<Item> streamObjects(String bucketName, String prefix, boolean recursive) {
+        return StreamSupport.stream(listObjects(bucketName, prefix, recursive).spliterator(), false)
+                .map(result -> {
+                    try {
+                        return result.get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException("列举文件失败 " + bucketName + FILE_SEPARATOR + prefix, e);
+                    }
+                });
+    }
+
     /**
      * 获取路径下文件列表
      *
@@ -553,15 +862,76 @@ public class MinioUtils {
      *
      * @param bucketName 存储桶名称
      * @param keys       需要删除的文件列表
+     * @return 删除失败的文件及原因
      */
-    public void removeObjects(String bucketName, List<String> keys) {
-        keys.forEach(key -> {
+    public Map<String, String> removeObjects(String bucketName, List<String> keys) {
+        return removeObjects(bucketName, keys.iterator());
+    }
+
+    /**
+     * 批量删除文件，每1000个文件一个 DeleteObjects 请求，最多 deleteParallelism 个请求同时执行，
+     * 调用线程只负责从 keys 中取下一批，keys 可以是惰性的(如 streamObjects)，取数与删除同时进行
+     *
+     * @param bucketName 存储桶名称
+     * @param keys       需要删除的文件
+     * @return 删除失败的文件及原因
+     */
+    public Map<String, String> removeObjects(String bucketName, Iterator<String> keys) {
+        Map<String, String> errors = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(minioProperties.getDeleteParallelism());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long total = 0L;
+        while (keys.hasNext()) {
+            List<String> chunk = new ArrayList<>(MAX_DELETE_KEYS);
+            while (keys.hasNext() && chunk.size() < MAX_DELETE_KEYS) {
+                chunk.add(keys.next());
+            }
+            total += chunk.size();
             try {
-                removeObject(bucketName, key);
-            } catch (Exception e) {
-                log.error("批量删除失败！error:{0}", e);
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chunk.forEach(key -> errors.put(key, "删除被中断"));
+                break;
             }
-        });
+            futures.add(CompletableFuture.runAsync(() -> removeChunk(bucketName, chunk, errors), deleteExecutor)
+                    .whenComplete((r, e) -> permits.release()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        log.info("批量删除 {} 个文件, 失败 {} 个", total, errors.size());
+        return errors;
+    }
+
+    /**
+     * 删除前缀下的全部文件，边列举边删除
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @return 删除失败的文件及原因
+     */
+    public Map<String, String> removeObjectsByPrefix(String bucketName, String prefix) {
+        try (Stream<Item> items = streamObjects(bucketName, prefix, true)) {
+            return removeObjects(bucketName, items.filter(item -> !item.isDir()).map(Item::objectName).iterator());
+        }
+    }
+
+    /**
+     * 一次 DeleteObjects 请求，服务端只返回删除失败的文件
+     */
+    private void removeChunk(String bucketName, List<String> keys, Map<String, String> errors) {
+        List<DeleteObject> objects = new ArrayList<>(keys.size());
+        keys.forEach(key -> objects.add(new DeleteObject(key)));
+        try {
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build());
+            // 结果是惰性的，遍历时才会真正发送请求
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                errors.put(error.objectName(), error.code() + ": " + error.message());
+            }
+        } catch (Exception e) {
+            log.error("批量删除失败 {} 个文件, {}", keys.size(), e.getMessage());
+            keys.forEach(key -> errors.putIfAbsent(key, String.valueOf(e.getMessage())));
+        }
     }
 
     /**
@@ -0,0 +1,93 @@
+package com.remember.minio.utils;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ListPartsResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 暴露 S3 分片上传接口(CreateMultipartUpload / UploadPart / ListParts / CompleteMultipartUpload)，
+ * MinioClient.putObject 只能顺序上传分片，这里由调用方自行控制分片并发和续传
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    private static final int MAX_LIST_PARTS = 1000;
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @param bucket      桶名称
+     * @param objectName  文件名称
+     * @param contentType 文件类型
+     * @return uploadId
+     */
+    public String createMultipartUpload(String bucket, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType);
+        return createMultipartUploadAsync(bucket, null, objectName, headers, null).get().result().uploadId();
+    }
+
+    /**
+     * 上传单个分片，服务端会按 Content-MD5 校验分片内容
+     *
+     * @param partNumber 分片序号，从1开始
+     * @param data       分片内容
+     * @param contentMd5 分片内容md5的base64
+     * @return etag
+     */
+    public String uploadPart(String bucket, String objectName, String uploadId, int partNumber, byte[] data, String contentMd5) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-MD5", contentMd5);
+        String etag = uploadPartAsync(bucket, null, objectName, data, data.length, uploadId, partNumber, headers, null).get().etag();
+        return trimEtag(etag);
+    }
+
+    /**
+     * 查询已上传的分片，用于续传
+     *
+     * @return 已上传分片
+     */
+    public List<Part> listParts(String bucket, String objectName, String uploadId) throws Exception {
+        List<Part> parts = new ArrayList<>();
+        Integer marker = null;
+        ListPartsResponse response;
+        do {
+            response = listPartsAsync(bucket, null, objectName, MAX_LIST_PARTS, marker, uploadId, null, null).get();
+            parts.addAll(response.result().partList());
+            marker = response.result().nextPartNumberMarker();
+        } while (response.result().isTruncated());
+        return parts;
+    }
+
+    /**
+     * 合并分片
+     *
+     * @param parts 按序号排列的分片
+     */
+    public ObjectWriteResponse completeMultipartUpload(String bucket, String objectName, String uploadId, Part[] parts) throws Exception {
+        return completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts, null, null).get();
+    }
+
+    /**
+     * 取消分片上传，删除已上传的分片
+     */
+    public void abortMultipartUpload(String bucket, String objectName, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).get();
+    }
+
+    static String trimEtag(String etag) {
+        return etag == null ? null : etag.replace("\"", "");
+    }
+}
@@ -0,0 +1,33 @@
+package com.remember5.office.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文档批量转换配置
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+public class DocConvertConfig {
+    /**
+     * 工作线程数，不配置时为CPU核数
+     */
+    @Value("${docConvert.workers:0}")
+    private int workers;
+
+    /**
+     * 排队任务数上限，超出后 submit 拒绝、submitAll 阻塞等待
+     */
+    @Value("${docConvert.queueCapacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * 单个任务默认超时时间(毫秒)
+     */
+    @Value("${docConvert.timeout:60000}")
+    private long timeout;
+}
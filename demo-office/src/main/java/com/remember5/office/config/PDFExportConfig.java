@@ -22,4 +22,16 @@ public class PDFExportConfig {
      */
     @Value("${pdfExport.employeeKpiFtl}")
     private String employeeKpiFtl;
+
+    /**
+     * 同时进行的 PDF 导出数量上限
+     */
+    @Value("${pdfExport.maxConcurrent:4}")
+    private int maxConcurrent;
+
+    /**
+     * 等待导出许可的最长时间(毫秒)，超时返回 503
+     */
+    @Value("${pdfExport.acquireTimeout:3000}")
+    private long acquireTimeout;
 }
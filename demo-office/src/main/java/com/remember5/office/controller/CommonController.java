@@ -4,14 +4,16 @@ import com.remember5.office.service.CommonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 
 /**
  * @author wangjiahao
@@ -32,17 +34,20 @@ public class CommonController {
      */
     @RequestMapping(value = "/export", method = {RequestMethod.POST, RequestMethod.GET},
             produces = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> export(){
+    public void export(HttpServletResponse response) throws IOException {
         try {
-            ResponseEntity<?> responseEntity = commonService.export();
-            return responseEntity;
+            commonService.export(response);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("PDF 导出失败", e);
+            // 已经开始输出文件内容时无法再改写响应
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{ \"code\" : \"404\", \"message\" : \"not found\" }");
         }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
-        return new ResponseEntity<String>("{ \"code\" : \"404\", \"message\" : \"not found\" }",
-                headers, HttpStatus.NOT_FOUND);
     }
 }
@@ -0,0 +1,61 @@
+package com.remember5.office.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 文档转换任务
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConvertJob {
+
+    /**
+     * 转换类型
+     */
+    private Type type;
+
+    /**
+     * 源文件路径，模板填充时为模板路径
+     */
+    private String source;
+
+    /**
+     * 目标文件路径，DOC_TO_TEXT 时不需要
+     */
+    private String target;
+
+    /**
+     * 模板填充数据，使用{{key}}占位
+     */
+    private Map<String, Object> data;
+
+    /**
+     * 超时时间(毫秒)，从开始执行计时，为空时使用默认值
+     */
+    private Long timeout;
+
+    public enum Type {
+        /**
+         * docx 转 pdf
+         */
+        DOCX_TO_PDF,
+        /**
+         * doc/docx 提取文本
+         */
+        DOC_TO_TEXT,
+        /**
+         * poi-tl 模板填充
+         */
+        TEMPLATE_FILL
+    }
+}
@@ -0,0 +1,60 @@
+package com.remember5.office.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 文档转换服务运行统计
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Builder
+public class ConvertStats {
+
+    /**
+     * 已提交任务数
+     */
+    private long submitted;
+
+    /**
+     * 成功数
+     */
+    private long completed;
+
+    /**
+     * 失败数(不含超时)
+     */
+    private long failed;
+
+    /**
+     * 超时数
+     */
+    private long timedOut;
+
+    /**
+     * 被拒绝数(队列已满)
+     */
+    private long rejected;
+
+    /**
+     * 排队中的任务数
+     */
+    private int queueDepth;
+
+    /**
+     * 正在执行的任务数
+     */
+    private int active;
+
+    /**
+     * 成功任务的平均耗时(毫秒)
+     */
+    private double avgCostMillis;
+
+    /**
+     * 服务启动以来每秒完成的任务数
+     */
+    private double throughput;
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.office.excel;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * excel列与实体字段的映射
+ * 读取时按表头标题匹配列，写出时按 order 排列
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExcelColumn {
+
+    /**
+     * 表头标题
+     */
+    String value();
+
+    /**
+     * 写出时的列顺序，越小越靠前
+     */
+    int order() default Integer.MAX_VALUE;
+
+    /**
+     * 日期/数字单元格格式，如 yyyy-mm-dd、#,##0.00，为空时日期使用默认格式
+     */
+    String format() default "";
+
+    /**
+     * 列宽(字符数)
+     */
+    int width() default 16;
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.office.excel;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 实体与excel行之间的映射
+ * <p>
+ * 每个类只解析一次注解，字段的读写转换为 MethodHandle 缓存在 {@link ClassValue} 中，
+ * 读写百万行时不再重复反射查找。
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public final class ExcelRowMapper<T> {
+
+    private static final ClassValue<ExcelRowMapper<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected ExcelRowMapper<?> computeValue(Class<?> type) {
+            return new ExcelRowMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+
+    /**
+     * 按 order 排序后的列
+     */
+    @Getter
+    private final List<Column> columns;
+
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelRowMapper<T> of(Class<T> type) {
+        return (ExcelRowMapper<T>) CACHE.get(type);
+    }
+
+    private ExcelRowMapper(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.constructor = lookup.unreflectConstructor(accessible(type.getDeclaredConstructor()));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 缺少可访问的无参构造方法", e);
+        }
+        List<Column> list = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                ExcelColumn column = field.getAnnotation(ExcelColumn.class);
+                if (column == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                try {
+                    accessible(field);
+                    list.add(new Column(column, field.getType(), lookup.unreflectGetter(field), lookup.unreflectSetter(field)));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("无法访问字段 " + field, e);
+                }
+            }
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException(type.getName() + " 没有 @ExcelColumn 字段");
+        }
+        list.sort(Comparator.comparingInt(Column::getOrder));
+        this.columns = List.copyOf(list);
+    }
+
+    /**
+     * 表头标题
+     */
+    public List<String> titles() {
+        List<String> titles = new ArrayList<>(columns.size());
+        columns.forEach(column -> titles.add(column.getTitle()));
+        return titles;
+    }
+
+    /**
+     * 读取第 index 列的值
+     */
+    public Object get(T bean, int index) {
+        try {
+            return columns.get(index).getter.invoke(bean);
+        } catch (Throwable e) {
+            throw new IllegalStateException("读取字段失败: " + columns.get(index).getTitle(), e);
+        }
+    }
+
+    /**
+     * 按表头顺序把一行文本转换为实体
+     *
+     * @param row     一行单元格文本
+     * @param mapping mapping[i] 为第 i 列在 row 中的下标，-1 表示表头中没有该列
+     */
+    public T toBean(List<String> row, int[] mapping) {
+        T bean = newInstance();
+        for (int i = 0; i < mapping.length; i++) {
+            int cell = mapping[i];
+            if (cell < 0 || cell >= row.size()) {
+                continue;
+            }
+            Column column = columns.get(i);
+            Object value = convert(row.get(cell), column.getType());
+            if (value == null && column.getType().isPrimitive()) {
+                continue;
+            }
+            try {
+                column.setter.invoke(bean, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("写入字段失败: " + column.getTitle(), e);
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * 根据表头计算每一列在行中的下标
+     */
+    public int[] mapping(List<String> header) {
+        int[] mapping = new int[columns.size()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = header.indexOf(columns.get(i).getTitle());
+        }
+        return mapping;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        try {
+            return (T) constructor.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("实例化失败: " + type.getName(), e);
+        }
+    }
+
+    private static <A extends java.lang.reflect.AccessibleObject> A accessible(A member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    /**
+     * 文本转换为字段类型，日期文本为 ISO 格式(由读取时的 DataFormatter 输出)
+     */
+    private static Object convert(String text, Class<?> target) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        if (target == String.class) {
+            return text;
+        }
+        if (target == Integer.class || target == int.class) {
+            return new BigDecimal(text).intValue();
+        }
+        if (target == Long.class || target == long.class) {
+            return new BigDecimal(text).longValue();
+        }
+        if (target == Double.class || target == double.class) {
+            return Double.valueOf(text);
+        }
+        if (target == Float.class || target == float.class) {
+            return Float.valueOf(text);
+        }
+        if (target == BigDecimal.class) {
+            return new BigDecimal(text);
+        }
+        if (target == Boolean.class || target == boolean.class) {
+            return "1".equals(text) || Boolean.parseBoolean(text);
+        }
+        if (target == LocalDateTime.class) {
+            return parseDateTime(text);
+        }
+        if (target == LocalDate.class) {
+            return parseDateTime(text).toLocalDate();
+        }
+        if (target == Date.class) {
+            return Date.from(parseDateTime(text).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        throw new IllegalArgumentException("不支持的字段类型: " + target.getName());
+    }
+
+    private static LocalDateTime parseDateTime(String text) {
+        return text.indexOf('T') > 0 ? LocalDateTime.parse(text) : LocalDate.parse(text).atStartOfDay();
+    }
+
+    /**
+     * 列定义
+     */
+    @Getter
+    public static final class Column {
+        private final String title;
+        private final int order;
+        private final String format;
+        private final int width;
+        private final Class<?> type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Column(ExcelColumn column, Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.title = column.value();
+            this.order = column.order();
+            this.format = column.format();
+            this.width = column.width();
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.office.excel;
+
+import java.util.List;
+
+/**
+ * 分页数据源，用于流式导出
+ * <p>
+ * 推荐按主键做游标分页(where id > #{last.id} order by id limit #{pageSize})，
+ * 避免 offset 越往后越慢，导出过程中只有一页数据驻留内存
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@FunctionalInterface
+public interface PageSource<T> {
+
+    /**
+     * 获取下一页
+     *
+     * @param last     上一页的最后一条数据，第一页为 null
+     * @param pageSize 每页条数
+     * @return 本页数据，为空或不足 pageSize 条表示已经取完
+     */
+    List<T> next(T last, int pageSize);
+}
@@ -1,6 +1,7 @@
 package com.remember5.office.service;
 
-import org.springframework.http.ResponseEntity;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 /**
  * @author wangjiahao
@@ -8,8 +9,9 @@ import org.springframework.http.ResponseEntity;
  */
 public interface CommonService {
     /**
-     * PDF 文件导出
-     * @return
+     * PDF 文件导出，直接写入 response
+     * @param response response
+     * @throws IOException 写出异常
      */
-    ResponseEntity<?> export();
+    void export(HttpServletResponse response) throws IOException;
 }
@@ -0,0 +1,41 @@
+package com.remember5.office.service;
+
+import com.remember5.office.entity.ConvertJob;
+import com.remember5.office.entity.ConvertStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 文档批量转换服务
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public interface DocConvertService {
+
+    /**
+     * 提交任务，队列已满时抛出 RejectedExecutionException
+     *
+     * @param job 转换任务
+     * @return 转换结果，DOC_TO_TEXT 为文本内容，其余为目标文件路径
+     */
+    CompletableFuture<String> submit(ConvertJob job);
+
+    /**
+     * 批量提交任务，队列已满时阻塞等待空位
+     *
+     * @param jobs 转换任务
+     * @return 与 jobs 顺序一致的结果
+     * @throws InterruptedException 等待空位时被中断
+     */
+    List<CompletableFuture<String>> submitAll(Collection<ConvertJob> jobs) throws InterruptedException;
+
+    /**
+     * 运行统计
+     *
+     * @return stats
+     */
+    ConvertStats stats();
+}
@@ -5,15 +5,23 @@ import com.remember5.office.service.CommonService;
 import com.remember5.office.utils.PDFUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author wangjiahao
@@ -25,32 +33,58 @@ public class CommonServiceImpl implements CommonService {
 
     private final PDFExportConfig pdfExportConfig;
 
+    /**
+     * 导出并发闸门，html 转 pdf 是 CPU 密集型操作，限制同时进行的数量
+     */
+    private Semaphore exportPermits;
+
+    @PostConstruct
+    public void init() {
+        exportPermits = new Semaphore(pdfExportConfig.getMaxConcurrent(), true);
+    }
+
     /**
      * PDF 文件导出
-     *
-     * @return
      */
     @Override
-    public ResponseEntity<?> export() {
-        HttpHeaders headers = new HttpHeaders();
-
+    public void export(HttpServletResponse response) throws IOException {
         // 数据导出(PDF 格式)
         Map<String, Object> dataMap = new HashMap<>(16);
         dataMap.put("statisticalTime",new Date().toString());
         dataMap.put("imageUrl","http://118.25.95.207:9000/ahtc/2021-08-10/4dba6307-fde7-4c62-b825-ff921c932464.png");
 
         String htmlStr = PDFUtil.freemarkerRender(dataMap, pdfExportConfig.getEmployeeKpiFtl());
-        byte[] pdfBytes = PDFUtil.createPDF(htmlStr, pdfExportConfig.getFontSimsun());
-        if (pdfBytes != null && pdfBytes.length > 0) {
+        if (htmlStr == null) {
+            writeJson(response, HttpStatus.NOT_FOUND, "{ \"code\" : \"404\", \"message\" : \"not found\" }");
+            return;
+        }
+
+        try {
+            if (!exportPermits.tryAcquire(pdfExportConfig.getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+                writeJson(response, HttpStatus.SERVICE_UNAVAILABLE, "{ \"code\" : \"503\", \"message\" : \"busy, please retry later\" }");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待导出许可被中断");
+        }
+        try {
             String fileName = System.currentTimeMillis() + (int) (Math.random() * 90000 + 10000) + ".pdf";
-            headers.setContentDispositionFormData("attachment", fileName);
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            return new ResponseEntity<byte[]>(pdfBytes, headers, HttpStatus.OK);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName).build().toString());
+            ServletOutputStream out = response.getOutputStream();
+            PDFUtil.createPDF(htmlStr, pdfExportConfig.getFontSimsun(), out);
+        } finally {
+            exportPermits.release();
         }
+    }
 
-        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
-        return new ResponseEntity<String>("{ \"code\" : \"404\", \"message\" : \"not found\" }",
-                headers, HttpStatus.NOT_FOUND);
+    private static void writeJson(HttpServletResponse response, HttpStatus status, String body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(body);
     }
 
 }
@@ -0,0 +1,263 @@
+package com.remember5.office.service.impl;
+
+import com.remember5.office.config.DocConvertConfig;
+import com.remember5.office.entity.ConvertJob;
+import com.remember5.office.entity.ConvertStats;
+import com.remember5.office.service.DocConvertService;
+import com.remember5.office.utils.DocToPdfConverter;
+import com.remember5.office.utils.WordUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文档批量转换服务
+ * <p>
+ * 任务在固定大小的线程池中执行，排队数量由信号量限制；
+ * 字体在启动时预加载并由所有任务共享，模板文件内容按路径缓存，避免每个任务重复读盘。
+ * 超时的任务会被中断，转换库不响应中断时工作线程会继续执行到结束，但结果已按超时返回。
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Service("docConvertService")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class DocConvertServiceImpl implements DocConvertService {
+
+    private final DocConvertConfig docConvertConfig;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService timer;
+
+    /**
+     * 执行中+排队中的任务数上限
+     */
+    private Semaphore slots;
+
+    /**
+     * 模板路径 -> 模板内容
+     */
+    private final Map<String, CachedTemplate> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder costMillis = new LongAdder();
+    private long startTime;
+
+    @PostConstruct
+    public void init() {
+        int workers = docConvertConfig.getWorkers() > 0
+                ? docConvertConfig.getWorkers() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "doc-convert-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "doc-convert-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        slots = new Semaphore(workers + docConvertConfig.getQueueCapacity());
+        startTime = System.currentTimeMillis();
+        // 预加载字体，第一个任务不再承担加载耗时；失败时转换任务会重新加载
+        try {
+            DocToPdfConverter.preloadFonts();
+        } catch (Exception e) {
+            log.error("预加载字体失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<String> submit(ConvertJob job) {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("转换队列已满");
+        }
+        return start(job);
+    }
+
+    @Override
+    public List<CompletableFuture<String>> submitAll(Collection<ConvertJob> jobs) throws InterruptedException {
+        List<CompletableFuture<String>> results = new ArrayList<>(jobs.size());
+        for (ConvertJob job : jobs) {
+            slots.acquire();
+            results.add(start(job));
+        }
+        return results;
+    }
+
+    @Override
+    public ConvertStats stats() {
+        long done = completed.sum();
+        double seconds = Math.max(System.currentTimeMillis() - startTime, 1) / 1000d;
+        return ConvertStats.builder()
+                .submitted(submitted.sum())
+                .completed(done)
+                .failed(failed.sum())
+                .timedOut(timedOut.sum())
+                .rejected(rejected.sum())
+                .queueDepth(executor.getQueue().size())
+                .active(executor.getActiveCount())
+                .avgCostMillis(done == 0 ? 0 : (double) costMillis.sum() / done)
+                .throughput(done / seconds)
+                .build();
+    }
+
+    private CompletableFuture<String> start(ConvertJob job) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            executor.execute(new JobRunner(job, result));
+        } catch (RejectedExecutionException e) {
+            // 服务已关闭
+            slots.release();
+            rejected.increment();
+            throw e;
+        }
+        submitted.increment();
+        return result;
+    }
+
+    private String convert(ConvertJob job) throws IOException {
+        switch (job.getType()) {
+            case DOCX_TO_PDF:
+                try (InputStream in = Files.newInputStream(Paths.get(job.getSource()));
+                     OutputStream out = Files.newOutputStream(Paths.get(job.getTarget()))) {
+                    DocToPdfConverter.convert(in, out);
+                }
+                return job.getTarget();
+            case DOC_TO_TEXT:
+                return WordUtils.readText(new File(job.getSource()));
+            case TEMPLATE_FILL:
+                Map<String, Object> data = job.getData() == null ? Collections.emptyMap() : job.getData();
+                try (InputStream in = new ByteArrayInputStream(template(job.getSource()));
+                     OutputStream out = Files.newOutputStream(Paths.get(job.getTarget()))) {
+                    WordUtils.doWriter(in, data, out);
+                }
+                return job.getTarget();
+            default:
+                throw new IllegalArgumentException("不支持的转换类型: " + job.getType());
+        }
+    }
+
+    /**
+     * 读取模板内容，文件修改后重新加载
+     */
+    private byte[] template(String source) throws IOException {
+        Path path = Paths.get(source);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        CachedTemplate cached = templates.get(source);
+        if (cached == null || cached.lastModified != lastModified) {
+            cached = new CachedTemplate(lastModified, Files.readAllBytes(path));
+            templates.put(source, cached);
+        }
+        return cached.content;
+    }
+
+    private static final class CachedTemplate {
+        private final long lastModified;
+        private final byte[] content;
+
+        private CachedTemplate(long lastModified, byte[] content) {
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+    }
+
+    /**
+     * 执行单个任务，开始执行时启动超时计时
+     */
+    private final class JobRunner implements Runnable {
+
+        private final ConvertJob job;
+        private final CompletableFuture<String> result;
+        private Thread worker;
+
+        private JobRunner(ConvertJob job, CompletableFuture<String> result) {
+            this.job = job;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            long begin = System.currentTimeMillis();
+            long timeout = job.getTimeout() != null ? job.getTimeout() : docConvertConfig.getTimeout();
+            synchronized (this) {
+                worker = Thread.currentThread();
+            }
+            ScheduledFuture<?> deadline = timer.schedule(this::timeout, timeout, TimeUnit.MILLISECONDS);
+            try {
+                String output = convert(job);
+                if (result.complete(output)) {
+                    completed.increment();
+                    costMillis.add(System.currentTimeMillis() - begin);
+                }
+            } catch (Throwable e) {
+                if (result.completeExceptionally(e)) {
+                    failed.increment();
+                    log.warn("文档转换失败: {} {}", job.getType(), job.getSource(), e);
+                }
+            } finally {
+                deadline.cancel(false);
+                synchronized (this) {
+                    worker = null;
+                    // 清除超时时留下的中断标记，避免影响下一个任务
+                    Thread.interrupted();
+                }
+                slots.release();
+            }
+        }
+
+        private void timeout() {
+            if (result.completeExceptionally(new TimeoutException("文档转换超时: " + job.getSource()))) {
+                timedOut.increment();
+                synchronized (this) {
+                    if (worker != null) {
+                        worker.interrupt();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -18,9 +18,12 @@ package com.remember5.office.utils;
 import com.lowagie.text.Font;
 import com.lowagie.text.pdf.BaseFont;
 import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
+import fr.opensagres.poi.xwpf.converter.core.XWPFConverterException;
 import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -40,20 +43,38 @@ public class DocToPdfConverter {
         WINGDINGS_MAP.put('¨', '\u2610'); // ☐
         WINGDINGS_MAP.put('ü', '\u2611'); // ☑
     }
-    public static void word2pdf(String docFile, String pdfFile) {
+    /**
+     * 字体及转换参数，加载成功后所有转换共享；加载失败时不缓存，下次转换重新加载
+     * BaseFont 只读共享，字体子集在每个文档的 PdfWriter 中单独生成
+     */
+    private static volatile PdfOptions options;
+
+    private static PdfOptions options() {
+        PdfOptions result = options;
+        if (result == null) {
+            synchronized (DocToPdfConverter.class) {
+                result = options;
+                if (result == null) {
+                    result = createOptions();
+                    options = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static PdfOptions createOptions() {
         // 创建字体集（优先处理Wingdings）
         FontSet fontSet = new FontSet();
-
         // 1. 注册Wingdings字体（符号字体优先）
         fontSet.addFont("Wingdings", loadFont("/wingding.ttf"));
-
         // 2. 注册中文字体（SimSun）
         fontSet.addFont("SimSun", loadFont("/SimSun.ttf"));
+        // 3. 默认字体（用于未匹配字体）与SimSun为同一个实例
+        BaseFont defaultFont = fontSet.getFont("SimSun");
 
-        // 3. 设置默认字体（用于未匹配字体）
-        BaseFont defaultFont = loadFont("/SimSun.ttf");
-        PdfOptions options = PdfOptions.create();
-        options.fontProvider((familyName, encoding, size, style, color) -> {
+        PdfOptions pdfOptions = PdfOptions.create();
+        pdfOptions.fontProvider((familyName, encoding, size, style, color) -> {
             try {
                 // 优先匹配Wingdings
                 if ("Wingdings".equalsIgnoreCase(familyName)) {
@@ -70,17 +91,45 @@ public class DocToPdfConverter {
                 return new Font(defaultFont, size, style, color);
             }
         });
-        try (XWPFDocument document = new XWPFDocument(Files.newInputStream(Paths.get(docFile)));
+        return pdfOptions;
+    }
+
+    public static void word2pdf(String docFile, String pdfFile) {
+        try (InputStream inputStream = Files.newInputStream(Paths.get(docFile));
              OutputStream outputStream = Files.newOutputStream(Paths.get(pdfFile))) {
+            convert(inputStream, outputStream);
+        } catch (Exception e) {
+            handleException(e);
+        }
+    }
 
+    /**
+     * 预加载字体，首次转换前调用可避免第一个请求承担加载耗时
+     *
+     * @throws RuntimeException 字体加载失败
+     */
+    public static void preloadFonts() {
+        options();
+    }
+
+    /**
+     * docx 转 pdf，使用共享的字体，转换失败时抛出异常
+     *
+     * @param docx docx输入流
+     * @param pdf  pdf输出流，转换结束时由 PdfConverter 关闭
+     * @throws IOException 读取或转换异常
+     */
+    public static void convert(InputStream docx, OutputStream pdf) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(docx)) {
             // 关键：预处理Wingdings字符
             preprocessWingdingsChars(document);
 
-            PdfConverter.getInstance().convert(document, outputStream, options);
-        } catch (Exception e) {
-            handleException(e);
+            PdfConverter.getInstance().convert(document, pdf, options());
+        } catch (XWPFConverterException e) {
+            throw new IOException("docx转pdf失败", e);
         }
     }
+
     // 加载字体（兼容JAR内资源）
     private static BaseFont loadFont(String resourcePath) {
         try {
@@ -15,71 +15,401 @@
  */
 package com.remember5.office.utils;
 
+import com.remember5.office.excel.ExcelRowMapper;
+import com.remember5.office.excel.PageSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * hutool excel扩展的工具类
+ * 大数据量excel(xlsx)流式读写工具类
+ * <p>
+ * 读取基于 SAX 事件模型逐行解析 sheet xml，按批回调，不构建整个 workbook；
+ * 写出基于 SXSSF，内存中只保留固定行数的窗口，其余行压缩后刷到临时文件。
+ *
  * @author wangjiahao
  * @date 2023/3/14 14:55
  */
+@Slf4j
 public class ExcelUtils {
 
-//    /**
-//     * 读取excel中的文本
-//     *
-//     * @param filePath 文件路径
-//     * @return 文本内容
-//     */
-//    public static String readExcel2Content(String filePath) {
-//        final File file = new File(filePath);
-//        return readExcel2Content(file);
-//    }
-//
-//
-//    /**
-//     * 读取excel中的文本
-//     *
-//     * @param file file
-//     * @return 文本内容
-//     */
-//    public static String readExcel2Content(File file) {
-//        ExcelReader reader = ExcelUtil.getReader(file);
-//        // sheet = 0
-//        List<List<Object>> readAll = reader.read();
-//
-//        final String sheet0Str = list2String(readAll);
-//        // 获取多页
-//        final int sheetCount = reader.getSheetCount();
-//        if (sheetCount > 1) {
-//            StringBuilder result = new StringBuilder(sheet0Str);
-//            for (int i = 1; i < sheetCount; i++) {
-//                reader.setSheet(i);
-//                final List<List<Object>> read = reader.read();
-//                result.append(list2String(read));
-//            }
-//            return result.toString();
-//        }
-//        return sheet0Str;
-//    }
-//
-//    /**
-//     * 拼接数据为string类型
-//     *
-//     * @param data data
-//     * @return string字符串
-//     */
-//    private static String list2String(List<List<Object>> data) {
-//        StringBuilder sb = new StringBuilder();
-//        for (List<Object> datum : data) {
-//            for (Object obj : datum) {
-//                if (null != obj) {
-//                    sb.append(obj);
-//                }
-//            }
-//        }
-//        return sb.toString();
-//    }
+    /**
+     * 默认每批回调的行数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * 写出时内存中保留的行数窗口
+     */
+    public static final int DEFAULT_ROW_WINDOW = 500;
+
+    /**
+     * 默认的日期格式
+     */
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    /**
+     * 单个sheet的最大行数(含表头)
+     */
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    /**
+     * 读取excel中的文本，所有sheet的非空单元格依次拼接
+     *
+     * @param filePath 文件路径
+     * @return 文本内容
+     * @throws IOException 读取异常
+     */
+    public static String readExcel2Content(String filePath) throws IOException {
+        return readExcel2Content(new File(filePath));
+    }
+
+    /**
+     * 读取excel中的文本，所有sheet的非空单元格依次拼接
+     *
+     * @param file file
+     * @return 文本内容
+     * @throws IOException 读取异常
+     */
+    public static String readExcel2Content(File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        readSheets(file, -1, new DataFormatter(), DEFAULT_BATCH_SIZE, rows -> {
+            for (List<String> row : rows) {
+                for (String cell : row) {
+                    if (null != cell) {
+                        sb.append(cell);
+                    }
+                }
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * 流式读取sheet，按批回调单元格的显示文本
+     * 每行为按列下标排列的文本，缺失的单元格为 null，空行不回调
+     *
+     * @param file       xlsx文件
+     * @param sheetIndex sheet下标，从0开始
+     * @param batchSize  每批行数
+     * @param consumer   批次回调，回调返回后批次列表不再被引用
+     * @return 读取的行数
+     * @throws IOException 读取或解析异常
+     */
+    public static long read(File file, int sheetIndex, int batchSize, Consumer<List<List<String>>> consumer) throws IOException {
+        return readSheets(file, sheetIndex, new DataFormatter(), batchSize, consumer);
+    }
+
+    /**
+     * 流式读取第一个sheet并映射为实体，第一行为表头，按 {@link com.remember5.office.excel.ExcelColumn} 标题匹配列
+     *
+     * @param file      xlsx文件
+     * @param type      实体类型
+     * @param batchSize 每批行数
+     * @param consumer  批次回调
+     * @return 读取的数据行数(不含表头)
+     * @throws IOException 读取或解析异常
+     */
+    public static <T> long read(File file, Class<T> type, int batchSize, Consumer<List<T>> consumer) throws IOException {
+        ExcelRowMapper<T> mapper = ExcelRowMapper.of(type);
+        int[][] mapping = new int[1][];
+        long[] count = new long[1];
+        // 读原始值：数字不带千分位，日期输出为 ISO 格式，便于转换为字段类型
+        readSheets(file, 0, new RawValueFormatter(), batchSize, rows -> {
+            List<T> beans = new ArrayList<>(rows.size());
+            for (List<String> row : rows) {
+                if (mapping[0] == null) {
+                    mapping[0] = mapper.mapping(row);
+                    continue;
+                }
+                beans.add(mapper.toBean(row, mapping[0]));
+            }
+            if (!beans.isEmpty()) {
+                count[0] += beans.size();
+                consumer.accept(beans);
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 从分页数据源流式导出，超过单sheet行数上限时自动新建sheet
+     *
+     * @param out      输出流，方法结束后不会关闭
+     * @param type     实体类型
+     * @param source   分页数据源
+     * @param pageSize 每页条数
+     * @return 导出的数据行数
+     * @throws IOException 写出异常
+     */
+    public static <T> long write(OutputStream out, Class<T> type, PageSource<T> source, int pageSize) throws IOException {
+        return write(out, type, source, pageSize, DEFAULT_ROW_WINDOW);
+    }
+
+    /**
+     * 从分页数据源流式导出，超过单sheet行数上限时自动新建sheet
+     *
+     * @param out       输出流，方法结束后不会关闭
+     * @param type      实体类型
+     * @param source    分页数据源
+     * @param pageSize  每页条数
+     * @param rowWindow 内存中保留的行数，超出的行压缩后写入临时文件
+     * @return 导出的数据行数
+     * @throws IOException 写出异常
+     */
+    public static <T> long write(OutputStream out, Class<T> type, PageSource<T> source, int pageSize, int rowWindow) throws IOException {
+        ExcelRowMapper<T> mapper = ExcelRowMapper.of(type);
+        List<ExcelRowMapper.Column> columns = mapper.getColumns();
+        // 不使用共享字符串表，字符串直接写入行中，避免全部字符串常驻内存
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, rowWindow, true, false);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+            // 样式是workbook级别的资源，每列只创建一次
+            CellStyle[] styles = new CellStyle[columns.size()];
+            for (int i = 0; i < styles.length; i++) {
+                String format = columnFormat(columns.get(i));
+                if (format != null) {
+                    styles[i] = workbook.createCellStyle();
+                    styles[i].setDataFormat(workbook.createDataFormat().getFormat(format));
+                }
+            }
+
+            SXSSFSheet sheet = null;
+            int rowIndex = MAX_ROWS;
+            long count = 0;
+            T last = null;
+            List<T> page;
+            do {
+                page = source.next(last, pageSize);
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+                for (T bean : page) {
+                    if (rowIndex >= MAX_ROWS) {
+                        sheet = newSheet(workbook, columns, headerStyle);
+                        rowIndex = 1;
+                    }
+                    Row row = sheet.createRow(rowIndex++);
+                    for (int i = 0; i < styles.length; i++) {
+                        setCellValue(row.createCell(i), mapper.get(bean, i), styles[i]);
+                    }
+                }
+                count += page.size();
+                last = page.get(page.size() - 1);
+            } while (page.size() >= pageSize);
+            if (sheet == null) {
+                newSheet(workbook, columns, headerStyle);
+            }
+            workbook.write(out);
+            out.flush();
+            return count;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static SXSSFSheet newSheet(SXSSFWorkbook workbook, List<ExcelRowMapper.Column> columns, CellStyle headerStyle) {
+        SXSSFSheet sheet = workbook.createSheet();
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < columns.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(columns.get(i).getTitle());
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, Math.min(columns.get(i).getWidth(), 255) * 256);
+        }
+        return sheet;
+    }
+
+    private static String columnFormat(ExcelRowMapper.Column column) {
+        if (!column.getFormat().isEmpty()) {
+            return column.getFormat();
+        }
+        Class<?> type = column.getType();
+        if (type == LocalDate.class) {
+            return "yyyy-mm-dd";
+        }
+        if (type == LocalDateTime.class || type == Date.class) {
+            return DEFAULT_DATE_FORMAT;
+        }
+        return null;
+    }
+
+    private static void setCellValue(Cell cell, Object value, CellStyle style) {
+        if (value == null) {
+            return;
+        }
+        if (style != null) {
+            cell.setCellStyle(style);
+        }
+        if (value instanceof BigDecimal) {
+            cell.setCellValue(((BigDecimal) value).doubleValue());
+        } else if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * SAX 方式读取sheet
+     *
+     * @param sheetIndex sheet下标，-1 表示读取全部sheet
+     */
+    private static long readSheets(File file, int sheetIndex, DataFormatter formatter, int batchSize,
+                                   Consumer<List<List<String>>> consumer) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            long count = 0;
+            for (int index = 0; sheets.hasNext(); index++) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetIndex >= 0 && index != sheetIndex) {
+                        continue;
+                    }
+                    BatchRowHandler handler = new BatchRowHandler(batchSize, consumer);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, handler, formatter, false));
+                    parser.parse(new InputSource(sheet));
+                    handler.flush();
+                    count += handler.getCount();
+                    log.debug("读取sheet[{}] {} 行", sheets.getSheetName(), handler.getCount());
+                }
+                if (sheetIndex >= 0 && index == sheetIndex) {
+                    return count;
+                }
+            }
+            if (sheetIndex >= 0) {
+                throw new IllegalArgumentException("sheet下标超出范围: " + sheetIndex);
+            }
+            return count;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("解析excel失败: " + file, e);
+        }
+    }
+
+    /**
+     * 把 SAX 事件组装为行，攒够一批后回调
+     */
+    private static class BatchRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final int batchSize;
+        private final Consumer<List<List<String>>> consumer;
+        private List<List<String>> batch;
+        private List<String> row;
+        private int column;
+        private long count;
+
+        BatchRowHandler(int batchSize, Consumer<List<List<String>>> consumer) {
+            this.batchSize = batchSize;
+            this.consumer = consumer;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            row = new ArrayList<>();
+            column = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (row.isEmpty()) {
+                return;
+            }
+            batch.add(row);
+            count++;
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // 没有 r 属性时按顺序递增
+            column = cellReference == null ? column + 1 : new CellReference(cellReference).getCol();
+            while (row.size() < column) {
+                row.add(null);
+            }
+            row.add(formattedValue);
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                consumer.accept(Collections.unmodifiableList(batch));
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * 输出单元格原始值的格式化器：日期为 ISO 格式，数字为不带格式的文本
+     */
+    private static class RawValueFormatter extends DataFormatter {
+
+        private final Map<Integer, Boolean> dateFormats = new HashMap<>();
 
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            boolean date = dateFormats.computeIfAbsent(formatIndex, i -> DateUtil.isADateFormat(formatIndex, formatString));
+            if (date && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toString();
+            }
+            return NumberToTextConverter.toText(value);
+        }
+    }
 }
@@ -4,22 +4,21 @@ import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.HtmlConverter;
 import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
 //import com.spire.pdf.FileFormat;
 //import com.spire.pdf.PdfDocument;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateExceptionHandler;
-import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.util.DigestUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * @author wangjiahao
@@ -30,16 +29,37 @@ public class PDFUtil {
     public PDFUtil() {
     }
 
-    private volatile static Configuration configuration;
+    /**
+     * 模板缓存检查更新的间隔，模板都在classpath中，运行期不会变化
+     */
+    private static final long TEMPLATE_UPDATE_DELAY = 60 * 60 * 1000L;
 
-    static {
-        if (configuration == null) {
-            synchronized (PDFUtil.class) {
-                if (configuration == null) {
-                    configuration = new Configuration(Configuration.VERSION_2_3_28);
-                }
-            }
-        }
+    /**
+     * 只配置一次，重复设置模板加载器会重建模板缓存
+     */
+    private static final Configuration configuration = createConfiguration();
+
+    /**
+     * 与 DefaultFontProvider 一致的默认字体族
+     */
+    private static final String DEFAULT_FONT_FAMILY = "Times";
+
+    /**
+     * 已加载的字体集合，key为字体文件路径或字体内容摘要
+     * FontProvider 与 PdfDocument 绑定不能跨文档复用，但 FontSet 可以共享，
+     * 系统字体扫描和字体文件解析只在首次使用时进行一次
+     */
+    private static final Map<String, FontSet> FONT_SETS = new ConcurrentHashMap<>();
+
+    private static Configuration createConfiguration() {
+        Configuration cfg = new Configuration(Configuration.VERSION_2_3_28);
+        cfg.setClassForTemplateLoading(PDFUtil.class, "/");
+        cfg.setDefaultEncoding("UTF-8");
+        cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        cfg.setLogTemplateExceptions(false);
+        cfg.setWrapUncheckedExceptions(true);
+        cfg.setTemplateUpdateDelayMilliseconds(TEMPLATE_UPDATE_DELAY);
+        return cfg;
     }
 
     /**
@@ -51,12 +71,8 @@ public class PDFUtil {
      * @return
      */
     public static String freemarkerRender(Map<String, Object> dataMap, String templateName) {
-        configuration.setClassForTemplateLoading(PDFUtil.class, "/");
-        configuration.setDefaultEncoding("UTF-8");
-        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
         try (Writer out = new StringWriter()) {
-            configuration.setLogTemplateExceptions(false);
-            configuration.setWrapUncheckedExceptions(true);
+            // getTemplate 命中缓存时直接返回已解析的模板
             Template template = configuration.getTemplate(templateName);
             template.process(dataMap, out);
             out.flush();
@@ -78,15 +94,7 @@ public class PDFUtil {
     public static byte[] createPDF(String html, String fontFile) {
         byte[] result = null;
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            PdfWriter pdfWriter = new PdfWriter(outputStream);
-
-            DefaultFontProvider fontProvider = new DefaultFontProvider();
-            fontProvider.addSystemFonts();
-            fontProvider.addFont(fontFile);
-            ConverterProperties converterProperties = new ConverterProperties();
-            converterProperties.setFontProvider(fontProvider);
-
-            HtmlConverter.convertToPdf(html, pdfWriter, converterProperties);
+            createPDF(html, fontFile, outputStream);
             result = outputStream.toByteArray();
         } catch (IOException e) {
             e.printStackTrace();
@@ -94,6 +102,22 @@ public class PDFUtil {
         return result;
     }
 
+    /**
+     * 使用 iText 生成 PDF 文档并直接写入输出流，不在内存中缓冲整个文件
+     *
+     * @param html     html 模板文件字符串
+     * @param fontFile 所需字体文件(相对路径+文件名)
+     * @param out      输出流，如 response.getOutputStream()，方法结束后不会关闭
+     * @throws IOException 写出异常
+     */
+    public static void createPDF(String html, String fontFile, OutputStream out) throws IOException {
+        FontSet fontSet = FONT_SETS.computeIfAbsent(fontFile, key -> loadFontSet(provider -> provider.addFont(fontFile)));
+        PdfWriter pdfWriter = new PdfWriter(out);
+        pdfWriter.setCloseStream(false);
+        HtmlConverter.convertToPdf(html, pdfWriter, converterProperties(fontSet));
+        out.flush();
+    }
+
     /**
      * @param html     html 模板文件字符串
      * @param fontFile 所需字体文件(相对路径+文件名)
@@ -101,16 +125,30 @@ public class PDFUtil {
      * @return
      */
     public static void createPDF(String html, byte[] fontFile, String savePath) throws IOException {
+        String key = "md5:" + DigestUtils.md5DigestAsHex(fontFile);
+        FontSet fontSet = FONT_SETS.computeIfAbsent(key, k -> loadFontSet(provider -> provider.addFont(fontFile)));
         try (PdfWriter pdfWriter = new PdfWriter(savePath)) {
-            DefaultFontProvider fontProvider = new DefaultFontProvider();
-            fontProvider.addFont(fontFile);
-            fontProvider.addSystemFonts();
+            HtmlConverter.convertToPdf(html, pdfWriter, converterProperties(fontSet));
+        }
+    }
 
-            ConverterProperties converterProperties = new ConverterProperties();
-            converterProperties.setFontProvider(fontProvider);
+    /**
+     * 扫描系统字体并加载指定字体，返回的 FontSet 之后只读
+     */
+    private static FontSet loadFontSet(Consumer<DefaultFontProvider> fonts) {
+        DefaultFontProvider fontProvider = new DefaultFontProvider();
+        fontProvider.addSystemFonts();
+        fonts.accept(fontProvider);
+        return fontProvider.getFontSet();
+    }
 
-            HtmlConverter.convertToPdf(html, pdfWriter, converterProperties);
-        }
+    /**
+     * 每次转换使用新的 FontProvider，共享已加载的 FontSet
+     */
+    private static ConverterProperties converterProperties(FontSet fontSet) {
+        ConverterProperties converterProperties = new ConverterProperties();
+        converterProperties.setFontProvider(new FontProvider(fontSet, DEFAULT_FONT_FAMILY));
+        return converterProperties;
     }
 
     /**
@@ -138,52 +176,28 @@ public class PDFUtil {
 
     public static void generatePdf2Image() {
         String savePath = "/Users/wangjiahao/Downloads/";
-        int dpi = 96; // 设置渲染的 DPI 值
-
         try {
-            PDDocument document = PDDocument.load(new File(savePath + "1695117787296.pdf"));
-            PDFRenderer renderer = new PDFRenderer(document);
-
-
-            int totalPages = document.getNumberOfPages();
-            ArrayList<BufferedImage> images = new ArrayList<>();
-
-            for (int i = 0; i < totalPages; i++) {
-                BufferedImage image = renderer.renderImageWithDPI(i, 300); // 使用300 DPI进行渲染
-                images.add(image);
-            }
-
-            document.close();
-
-            int totalWidth = 0;
-            int totalHeight = 0;
-
-            for (BufferedImage image : images) {
-                totalWidth = Math.max(totalWidth, image.getWidth());
-                totalHeight += image.getHeight();
-            }
-
-            BufferedImage mergedImage = new BufferedImage(totalWidth, totalHeight, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = mergedImage.createGraphics();
-            g2d.setColor(Color.WHITE);
-            g2d.fillRect(0, 0, totalWidth, totalHeight);
-
-            int currentHeight = 0;
-
-            for (BufferedImage image : images) {
-                g2d.drawImage(image, 0, currentHeight, image.getWidth(), image.getHeight(), null);
-                currentHeight += image.getHeight();
-            }
-
-
-            // 保存为PNG文件
-            ImageIO.write(mergedImage, "png", new File(savePath + "test.png"));
-            document.close();
+            // 使用300 DPI进行渲染
+            generatePdf2Image(new File(savePath + "1695117787296.pdf"), new File(savePath + "test.png"), 300);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * pdf所有页纵向拼接为一张PNG长图
+     * 页面并行渲染，按条带流式写出，不在内存中持有整张拼接图
+     *
+     * @param pdf    pdf文件
+     * @param target 保存的png文件
+     * @param dpi    渲染的 DPI 值
+     * @return target
+     * @throws IOException /
+     */
+    public static File generatePdf2Image(File pdf, File target, int dpi) throws IOException {
+        return PdfBoxUtils.pdf2LongImage(pdf, target, dpi);
+    }
+
 
     private static int getPageHeightWithoutMargins(PDPage page) {
         // 计算页面高度（去掉页边距）
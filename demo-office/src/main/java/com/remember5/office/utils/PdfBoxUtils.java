@@ -21,16 +21,40 @@ import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * 合并PDF及PDF转图片
@@ -42,6 +66,38 @@ import java.util.List;
 @Slf4j
 public class PdfBoxUtils {
 
+    /**
+     * 页面处理线程数，与CPU核数一致
+     */
+    private static final int PAGE_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 逐页写盘的渲染线程池，线程数固定为核数，空闲后自动回收
+     * 这里的任务不会等待其他线程，可以共享
+     */
+    private static final ThreadPoolExecutor PAGE_EXECUTOR = new ThreadPoolExecutor(
+            PAGE_PARALLELISM, PAGE_PARALLELISM, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), pageThreadFactory("pdf-page-"));
+
+    /**
+     * 顺序输出模式下所有调用合计可用的工作线程数
+     * 该模式的工作线程会阻塞等待调用线程取走结果，不能放进共享线程池排队，
+     * 每次调用一次性取得自己全部通道的许可，并使用独立的线程
+     */
+    private static final Semaphore ORDERED_LANES = new Semaphore(PAGE_PARALLELISM, true);
+
+    static {
+        PAGE_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory pageThreadFactory(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
      * pdf合并拼接
      *
@@ -50,6 +106,21 @@ public class PdfBoxUtils {
      * @throws IOException 读取文件异常
      */
     public static File somePdfToOne(List<File> files, String targetPath) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(targetPath)))) {
+            somePdfToOne(files, out);
+        }
+        return new File(targetPath);
+    }
+
+    /**
+     * pdf合并拼接，直接写入输出流
+     * 合并过程中的对象缓存在临时文件中，不随页数增长占用堆内存
+     *
+     * @param files 文件列表
+     * @param out   合并结果输出流，由调用方负责关闭
+     * @throws IOException 读取文件异常
+     */
+    public static void somePdfToOne(List<File> files, OutputStream out) throws IOException {
         // pdf合并工具类
         PDFMergerUtility mergePdf = new PDFMergerUtility();
         for (File f : files) {
@@ -58,11 +129,9 @@ public class PdfBoxUtils {
                 mergePdf.addSource(f);
             }
         }
-        // 设置合并生成pdf文件名称
-        mergePdf.setDestinationFileName(targetPath);
+        mergePdf.setDestinationStream(out);
         // 合并pdf
-        mergePdf.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
-        return new File(targetPath);
+        mergePdf.mergeDocuments(MemoryUsageSetting.setupTempFileOnly());
     }
 
     /***
@@ -74,40 +143,313 @@ public class PdfBoxUtils {
      */
     public static void pdf2Image(String filePath, String dstImgFolder, int dpi) {
         File file = new File(filePath);
-        PDDocument pdDocument;
+        String imagePDFName = baseName(file);
+        String imgFolderPath;
+        if (dstImgFolder.equals("")) {
+            imgFolderPath = file.getParent() + File.separator + imagePDFName;// 获取图片存放的文件夹路径
+        } else {
+            imgFolderPath = dstImgFolder + File.separator + imagePDFName;
+        }
+        try {
+            pdf2Image(file, new File(imgFolderPath), dpi, "png");
+            log.info("PDF文档转PNG图片成功！");
+        } catch (IOException e) {
+            log.error("PDF文档转PNG图片失败：{}", imgFolderPath, e);
+        }
+    }
+
+    /**
+     * PDF文件按页并行转图片
+     * <p>
+     * 每个渲染线程持有自己的PDDocument（PDDocument非线程安全），按页交错领取页面，
+     * 每页渲染完成后立即在当前线程编码写盘，不在内存中堆积页面图片。
+     *
+     * @param pdf       pdf文件
+     * @param imgFolder 图片存放的文件夹，图片命名为 文件名_页码.格式
+     * @param dpi       dpi越大转换后越清晰，相对转换速度越慢
+     * @param format    图片格式，如 png、jpg
+     * @return 按页码排序的图片文件
+     * @throws IOException 读取或写出异常
+     */
+    public static List<File> pdf2Image(File pdf, File imgFolder, float dpi, String format) throws IOException {
+        if (!createDirectory(imgFolder.getPath())) {
+            throw new IOException("创建" + imgFolder + "失败");
+        }
+        String imagePDFName = baseName(pdf);
+        int pages;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            pages = document.getNumberOfPages();
+        }
+        File[] images = new File[pages];
+        if (pages == 0) {
+            return Collections.emptyList();
+        }
+        List<Future<?>> workers = processPages(PAGE_EXECUTOR, pdf, 0, pages, MemoryUsageSetting.setupMainMemoryOnly(), renderer(dpi), (pageIndex, image) -> {
+            File dstFile = new File(imgFolder, imagePDFName + "_" + (pageIndex + 1) + "." + format);
+            if (!ImageIO.write(image, format, dstFile)) {
+                throw new IOException("不支持的图片格式: " + format);
+            }
+            images[pageIndex] = dstFile;
+        });
+        awaitAll(workers);
+        return Arrays.asList(images);
+    }
+
+    /**
+     * PDF所有页纵向拼接为一张长图(PNG)
+     * <p>
+     * 页面由渲染线程并行渲染，每个线程只允许领先一页，主线程按页码顺序把每页作为条带
+     * 流式写入{@link PngStripWriter}，内存中最多同时存在 线程数×2 页图片，不会创建整张拼接图。
+     * 宽度取所有页面最大宽度，较窄的页面右侧补白。
+     *
+     * @param pdf    pdf文件
+     * @param target 目标png文件
+     * @param dpi    dpi越大转换后越清晰，相对转换速度越慢
+     * @return 目标文件
+     * @throws IOException 读取或写出异常
+     */
+    public static File pdf2LongImage(File pdf, File target, float dpi) throws IOException {
+        float scale = dpi / 72f;
+        int pages;
+        int width = 0;
+        long height = 0;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            pages = document.getNumberOfPages();
+            for (PDPage page : document.getPages()) {
+                int[] size = pageSize(page, scale);
+                width = Math.max(width, size[0]);
+                height += size[1];
+            }
+        }
+        if (pages == 0) {
+            throw new IOException("PDF没有页面: " + pdf);
+        }
+        if (height > Integer.MAX_VALUE) {
+            throw new IOException("拼接后图片高度超出PNG限制: " + height);
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target.toPath()));
+             PngStripWriter writer = new PngStripWriter(out, width, (int) height)) {
+            processInOrder(pdf, 0, pages, MemoryUsageSetting.setupMainMemoryOnly(), renderer(dpi),
+                    (pageIndex, image) -> writer.writeStrip(image));
+        }
+        return target;
+    }
+
+    /**
+     * 并行处理页面，结果在调用线程中按页码顺序交给 sink
+     * <p>
+     * 每个工作线程只允许领先一页，内存中最多同时存在 线程数×2 页的结果。
+     * 工作线程由本次调用独占，并发调用超出 {@link #ORDERED_LANES} 时排队等待许可，
+     * 不会出现工作线程等待一个尚未启动的通道而互相阻塞
+     *
+     * @param from 起始页下标(含)，从0开始
+     * @param to   结束页下标(不含)
+     */
+    private static <R> void processInOrder(File pdf, int from, int to, MemoryUsageSetting memory,
+                                           PageWorker<R> pageWorker, PageConsumer<R> sink) throws IOException {
+        if (to <= from) {
+            return;
+        }
+        int lanes = Math.min(PAGE_PARALLELISM, to - from);
+        try {
+            ORDERED_LANES.acquire(lanes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待页面处理线程被中断");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(lanes, pageThreadFactory("pdf-ordered-"));
         try {
-            String imgPDFPath = file.getParent();
-            int dot = file.getName().lastIndexOf('.');
-            String imagePDFName = file.getName().substring(0, dot); // 获取图片文件名
-            String imgFolderPath = null;
-            if (dstImgFolder.equals("")) {
-                imgFolderPath = imgPDFPath + File.separator + imagePDFName;// 获取图片存放的文件夹路径
-            } else {
-                imgFolderPath = dstImgFolder + File.separator + imagePDFName;
+            List<BlockingQueue<R>> queues = new ArrayList<>(lanes);
+            for (int i = 0; i < lanes; i++) {
+                queues.add(new ArrayBlockingQueue<>(1));
             }
-            if (createDirectory(imgFolderPath)) {
-                pdDocument = PDDocument.load(file);
-                PDFRenderer renderer = new PDFRenderer(pdDocument);
-                /* dpi越大转换后越清晰，相对转换速度越慢 */
-                int pages = pdDocument.getNumberOfPages();
-                StringBuffer imgFilePath = null;
-                for (int i = 0; i < pages; i++) {
-                    String imgFilePathPrefix = imgFolderPath + File.separator + imagePDFName;
-                    imgFilePath = new StringBuffer();
-                    imgFilePath.append(imgFilePathPrefix);
-                    imgFilePath.append("_");
-                    imgFilePath.append(String.valueOf(i + 1));
-                    File dstFile = new File(imgFilePath.toString());
-                    BufferedImage image = renderer.renderImageWithDPI(i, dpi);
-                    ImageIO.write(image, "png", dstFile);
+            List<Future<?>> workers = processPages(executor, pdf, from, to, memory, pageWorker,
+                    (pageIndex, result) -> queues.get((pageIndex - from) % lanes).put(result));
+            try {
+                for (int i = from; i < to; i++) {
+                    int lane = (i - from) % lanes;
+                    sink.accept(i, takePage(queues.get(lane), workers.get(lane)));
                 }
-                System.out.println("PDF文档转PNG图片成功！");
-            } else {
-                System.out.println("PDF文档转PNG图片失败：" + "创建" + imgFolderPath + "失败");
+            } catch (IOException | RuntimeException e) {
+                workers.forEach(worker -> worker.cancel(true));
+                throw e;
+            } catch (InterruptedException e) {
+                workers.forEach(worker -> worker.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("处理页面被中断");
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            awaitAll(workers);
+        } finally {
+            // 中断仍阻塞在队列上的工作线程，使其关闭文档
+            executor.shutdownNow();
+            ORDERED_LANES.release(lanes);
+        }
+    }
+
+    /**
+     * 启动页面处理线程，每个线程加载自己的PDDocument（PDDocument非线程安全），
+     * 第 w 个线程处理页码 from+w, from+w+n, from+w+2n ... 的页面
+     */
+    private static <R> List<Future<?>> processPages(ExecutorService executor, File pdf, int from, int to, MemoryUsageSetting memory,
+                                                    PageWorker<R> pageWorker, PageConsumer<R> consumer) {
+        int lanes = Math.min(PAGE_PARALLELISM, to - from);
+        List<Future<?>> workers = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int first = from + lane;
+            workers.add(executor.submit(() -> {
+                try (PDDocument document = PDDocument.load(pdf, memory)) {
+                    pageWorker.process(document, first, to, lanes, consumer);
+                }
+                return null;
+            }));
         }
+        return workers;
+    }
+
+    private static PageWorker<BufferedImage> renderer(float dpi) {
+        return (document, first, to, step, consumer) -> {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = first; i < to; i += step) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                consumer.accept(i, renderer.renderImageWithDPI(i, dpi, ImageType.RGB));
+            }
+        };
+    }
+
+    /**
+     * 每个线程只运行一次 PDFTextStripper，遍历一遍页面树，只提取本线程负责的页面，
+     * 每页结束时取出该页文本交给 consumer；没有内容流的页面不会被 stripper 处理，按空文本补齐
+     */
+    private static PageWorker<String> textExtractor() {
+        return (document, first, to, step, consumer) -> {
+            StringWriter output = new StringWriter();
+            PDFTextStripper stripper = new PDFTextStripper() {
+
+                /**
+                 * 下一个应交给 consumer 的页下标
+                 */
+                private int next = first;
+
+                @Override
+                public void processPage(PDPage page) throws IOException {
+                    if ((getCurrentPageNo() - 1 - first) % step == 0) {
+                        super.processPage(page);
+                    }
+                }
+
+                @Override
+                protected void endPage(PDPage page) throws IOException {
+                    super.endPage(page);
+                    int pageIndex = getCurrentPageNo() - 1;
+                    emitEmptyUntil(pageIndex);
+                    String text = output.toString();
+                    output.getBuffer().setLength(0);
+                    emit(pageIndex, text);
+                }
+
+                @Override
+                protected void endDocument(PDDocument document) throws IOException {
+                    super.endDocument(document);
+                    emitEmptyUntil(to);
+                }
+
+                private void emitEmptyUntil(int pageIndex) throws IOException {
+                    while (next < pageIndex) {
+                        emit(next, "");
+                    }
+                }
+
+                private void emit(int pageIndex, String text) throws IOException {
+                    try {
+                        consumer.accept(pageIndex, text);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("处理页面被中断");
+                    }
+                    next = pageIndex + step;
+                }
+            };
+            stripper.setStartPage(first + 1);
+            stripper.setEndPage(to);
+            stripper.writeText(document, output);
+        };
+    }
+
+    /**
+     * 从处理线程的队列取下一页，处理线程异常退出时抛出其异常
+     */
+    private static <R> R takePage(BlockingQueue<R> queue, Future<?> worker) throws IOException, InterruptedException {
+        R result;
+        while ((result = queue.poll(1, TimeUnit.SECONDS)) == null) {
+            if (worker.isDone()) {
+                // 线程结束前放入的最后一页
+                result = queue.poll();
+                if (result != null) {
+                    return result;
+                }
+                awaitAll(Collections.singletonList(worker));
+                throw new IOException("页面处理线程提前结束");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 等待所有处理线程结束，任一失败则取消其余线程并抛出原始异常
+     */
+    private static void awaitAll(List<Future<?>> workers) throws IOException {
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("PDF页面处理失败", cause);
+        } catch (InterruptedException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待页面处理被中断");
+        }
+    }
+
+    /**
+     * 与 PDFRenderer.renderImage 相同的方式计算页面渲染后的像素尺寸
+     */
+    private static int[] pageSize(PDPage page, float scale) {
+        PDRectangle cropBox = page.getCropBox();
+        int widthPx = (int) Math.max(Math.floor(cropBox.getWidth() * scale), 1);
+        int heightPx = (int) Math.max(Math.floor(cropBox.getHeight() * scale), 1);
+        int rotation = page.getRotation();
+        if (rotation == 90 || rotation == 270) {
+            return new int[]{heightPx, widthPx};
+        }
+        return new int[]{widthPx, heightPx};
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * 在工作线程中用已加载的文档处理下标为 first, first+step, ... (小于 to) 的页面，按页码顺序交给 consumer
+     */
+    @FunctionalInterface
+    private interface PageWorker<R> {
+        void process(PDDocument document, int first, int to, int step, PageConsumer<R> consumer) throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface PageConsumer<R> {
+        void accept(int pageIndex, R result) throws IOException, InterruptedException;
     }
 
     private static boolean createDirectory(String folder) {
@@ -249,10 +591,50 @@ public class PdfBoxUtils {
      * @throws IOException 读取文件异常
      */
     public static String readPdfText(File file) throws IOException {
-        PDDocument doc = PDDocument.load(file);
+        PDDocument doc = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly());
         PDFTextStripper pdfTextStripper = new PDFTextStripper();
         String text = pdfTextStripper.getText(doc);
         doc.close();
         return text;
     }
+
+    /**
+     * 逐页读取pdf中的文字
+     *
+     * @param file     file
+     * @param consumer 回调(页码从1开始, 该页文本)
+     * @return 页数
+     * @throws IOException 读取文件异常
+     */
+    public static int readPdfText(File file, BiConsumer<Integer, String> consumer) throws IOException {
+        return readPdfText(file, 1, Integer.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 逐页读取pdf指定页码范围内的文字
+     * <p>
+     * 页面由多个线程并行提取，每个线程持有自己的PDDocument和PDFTextStripper，文档缓存使用临时文件；
+     * 回调在调用线程中按页码顺序执行，只有少量页面的文本驻留内存，适合大文件建索引。
+     *
+     * @param file      file
+     * @param startPage 起始页码(含)，从1开始
+     * @param endPage   结束页码(含)，超出总页数时读到最后一页
+     * @param consumer  回调(页码从1开始, 该页文本)
+     * @return 实际读取的页数
+     * @throws IOException 读取文件异常
+     */
+    public static int readPdfText(File file, int startPage, int endPage, BiConsumer<Integer, String> consumer) throws IOException {
+        int pages;
+        try (PDDocument document = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+            pages = document.getNumberOfPages();
+        }
+        int from = Math.max(startPage, 1) - 1;
+        int to = Math.min(endPage, pages);
+        if (to <= from) {
+            return 0;
+        }
+        processInOrder(file, from, to, MemoryUsageSetting.setupTempFileOnly(), textExtractor(),
+                (pageIndex, text) -> consumer.accept(pageIndex + 1, text));
+        return to - from;
+    }
 }
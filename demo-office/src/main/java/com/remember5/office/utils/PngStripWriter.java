@@ -0,0 +1,207 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember5.office.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 按行条带流式写出PNG（8位RGB）
+ * <p>
+ * 尺寸在构造时确定，之后逐条写入{@link BufferedImage}，每一行经过Sub滤波后直接压缩写出，
+ * 内存中只保留一行像素和一个IDAT缓冲区，适合拼接超长图片。
+ * 条带宽度不足时右侧补白，写入行数不足时{@link #close()}会以白色补齐。
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class PngStripWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * 单个IDAT块的最大字节数
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int WHITE = 0xFFFFFF;
+
+    private static final byte FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final IdatOutputStream idatChunks;
+    private final DeflaterOutputStream idat;
+    private final int[] rgb;
+    private final byte[] scanline;
+    private int rows;
+    private boolean closed;
+
+    /**
+     * @param out    输出流，关闭本writer时不会关闭该流
+     * @param width  图片宽度(px)
+     * @param height 图片高度(px)
+     * @throws IOException 写出PNG头异常
+     */
+    public PngStripWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("图片尺寸非法: " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.rgb = new int[width];
+        this.scanline = new byte[1 + width * 3];
+
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        // 位深8，颜色类型2(RGB)，压缩方式0，滤波方式0，不隔行
+        ihdr.writeByte(8);
+        ihdr.writeByte(2);
+        ihdr.writeByte(0);
+        ihdr.writeByte(0);
+        ihdr.writeByte(0);
+        writeChunk("IHDR", header.toByteArray(), header.size());
+
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        this.idatChunks = new IdatOutputStream();
+        this.idat = new DeflaterOutputStream(idatChunks, deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * 追加一个条带，超出图片高度的部分会被丢弃
+     *
+     * @param strip 条带图片
+     * @throws IOException 写出异常
+     */
+    public void writeStrip(BufferedImage strip) throws IOException {
+        if (closed) {
+            throw new IOException("PngStripWriter已关闭");
+        }
+        int w = Math.min(strip.getWidth(), width);
+        int h = Math.min(strip.getHeight(), height - rows);
+        for (int y = 0; y < h; y++) {
+            strip.getRGB(0, y, w, 1, rgb, 0, width);
+            Arrays.fill(rgb, w, width, WHITE);
+            writeRow();
+        }
+    }
+
+    /**
+     * 已写入的行数
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            Arrays.fill(rgb, WHITE);
+            while (rows < height) {
+                writeRow();
+            }
+            idat.finish();
+            idatChunks.flushChunk();
+            writeChunk("IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeRow() throws IOException {
+        scanline[0] = FILTER_SUB;
+        int prev = 0;
+        for (int x = 0, p = 1; x < width; x++, p += 3) {
+            int pixel = rgb[x];
+            // Sub滤波：与左侧像素同通道做差
+            scanline[p] = (byte) ((pixel >> 16) - (prev >> 16));
+            scanline[p + 1] = (byte) ((pixel >> 8) - (prev >> 8));
+            scanline[p + 2] = (byte) (pixel - prev);
+            prev = pixel;
+        }
+        idat.write(scanline);
+        rows++;
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * 将压缩数据切分为固定大小的IDAT块
+     */
+    private class IdatOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
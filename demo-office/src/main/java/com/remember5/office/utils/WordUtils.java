@@ -17,6 +17,7 @@ package com.remember5.office.utils;
 
 
 import com.deepoove.poi.XWPFTemplate;
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.Font;
 import com.lowagie.text.pdf.BaseFont;
 import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
@@ -63,6 +64,20 @@ public class WordUtils {
         template.close();
     }
 
+    /**
+     * 写入word 填充内容并输出到流，使用{{key}} 就可以填充
+     *
+     * @param inputStream 模板输入流
+     * @param data        拼写的数据
+     * @param out         输出流，不会被关闭
+     * @throws IOException /
+     */
+    public static void doWriter(InputStream inputStream, Map<String, ?> data, OutputStream out) throws IOException {
+        try (XWPFTemplate template = XWPFTemplate.compile(inputStream).render(data)) {
+            template.write(out);
+        }
+    }
+
     /**
      * word转pdf
      *
@@ -79,8 +94,8 @@ public class WordUtils {
 //                BaseFont bfChinese = BaseFont.createFont("STSong-Light", "UniGB-UCS2-H", BaseFont.NOT_EMBEDDED);
                 // 使用资源字体(ClassPath)
                 // BaseFont bfChinese = BaseFont.createFont("/SIMYOU.TTF", BaseFont.IDENTITY_H,BaseFont.NOT_EMBEDDED);
-                // 使用其他的字体
-                 BaseFont bfChinese = BaseFont.createFont("/Users/wangjiahao/Downloads/SimSun.ttf", BaseFont.IDENTITY_H, BaseFont.NOT_EMBEDDED);
+                // 使用其他的字体，只加载一次
+                BaseFont bfChinese = chineseFont();
                 Font fontChinese = new Font(bfChinese, size, style, color);
                 if (familyName != null) {
                     fontChinese.setFamily(familyName);
@@ -99,6 +114,43 @@ public class WordUtils {
         }
     }
 
+    private static volatile BaseFont chineseFont;
+
+    private static BaseFont chineseFont() throws IOException, DocumentException {
+        if (chineseFont == null) {
+            synchronized (WordUtils.class) {
+                if (chineseFont == null) {
+                    chineseFont = BaseFont.createFont("/Users/wangjiahao/Downloads/SimSun.ttf", BaseFont.IDENTITY_H, BaseFont.NOT_EMBEDDED);
+                }
+            }
+        }
+        return chineseFont;
+    }
+
+    /**
+     * 读取word的文本内容，按扩展名区分doc和docx，读取失败时抛出异常
+     *
+     * @param file doc或docx文件
+     * @return content
+     * @throws IOException 读取异常或不是word文件
+     */
+    public static String readText(File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".doc")) {
+            try (InputStream is = Files.newInputStream(file.toPath());
+                 WordExtractor ex = new WordExtractor(is)) {
+                return ex.getText();
+            }
+        }
+        if (name.endsWith(".docx")) {
+            try (InputStream is = Files.newInputStream(file.toPath());
+                 XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(is))) {
+                return extractor.getText();
+            }
+        }
+        throw new IOException("此文件不是word文件！" + file);
+    }
+
     public static String readDocsContent(String filePath) {
         String buffer = "";
         try {
@@ -16,12 +16,23 @@
 package com.remember5.office.pdfbox;
 
 import com.remember5.office.utils.PdfBoxUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author wangjiahao
@@ -58,4 +69,53 @@ public class PDFTest {
         File fontFile = classPathResource.getFile();
         PdfBoxUtils.textInPdf(savePath + "pdf1.pdf", "中国电信上海分公司", savePath + "result1.pdf", 0, 180, 660, fontFile, 12);
     }
+
+    /**
+     * 并发逐页提取文本，并发数超过核数时不能互相阻塞
+     */
+    @Test
+    void concurrentReadPdfText() throws Exception {
+        int pages = Runtime.getRuntime().availableProcessors() * 4;
+        File pdf = File.createTempFile("pages", ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.beginText();
+                    contents.setFont(PDType1Font.HELVETICA, 12);
+                    contents.newLineAtOffset(100, 700);
+                    contents.showText("page-" + i);
+                    contents.endText();
+                }
+            }
+            document.save(pdf);
+        }
+
+        int calls = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(calls);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int c = 0; c < calls; c++) {
+                results.add(executor.submit(() -> {
+                    List<String> texts = new ArrayList<>();
+                    PdfBoxUtils.readPdfText(pdf, (pageNum, text) -> {
+                        Assertions.assertEquals(texts.size() + 1, pageNum);
+                        texts.add(text);
+                    });
+                    return texts;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                List<String> texts = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60), () -> result.get());
+                Assertions.assertEquals(pages, texts.size());
+                for (int i = 0; i < pages; i++) {
+                    Assertions.assertTrue(texts.get(i).contains("page-" + (i + 1)));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            pdf.delete();
+        }
+    }
 }
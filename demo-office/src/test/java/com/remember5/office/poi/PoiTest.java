@@ -20,6 +20,8 @@ package com.remember5.office.poi;
  * @date 2023/6/14 11:50
  */
 
+import com.remember5.office.excel.ExcelColumn;
+import com.remember5.office.utils.ExcelUtils;
 import com.remember5.office.utils.ResourceFileUtil;
 import com.remember5.office.utils.WordUtils;
 import org.apache.poi.hssf.usermodel.HSSFCell;
@@ -27,15 +29,24 @@ import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.DataFormatter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -43,10 +54,51 @@ import java.util.Map;
 public class PoiTest {
 
     @Test
-    public void readExcel() throws FileNotFoundException {
-//        final File file = ResourceFileUtil.getFile("files/test.xlsx");
-//        final String s = ExcelUtils.readExcel2Content(file);
-//        System.err.println(s);
+    public void readExcel() throws IOException {
+        final File file = ResourceFileUtil.getFile("files/test.xlsx");
+        final String s = ExcelUtils.readExcel2Content(file);
+        System.err.println(s);
+    }
+
+    @Test
+    public void streamExcel() throws IOException {
+        File file = File.createTempFile("stream", ".xlsx");
+        int total = 100_000;
+        try (OutputStream out = new FileOutputStream(file)) {
+            // 模拟按主键游标分页查询
+            ExcelUtils.write(out, Bill.class, (last, pageSize) -> {
+                long from = last == null ? 0 : last.getId();
+                List<Bill> page = new ArrayList<>(pageSize);
+                for (long id = from + 1; id <= Math.min(from + pageSize, total); id++) {
+                    page.add(new Bill(id, "账单" + id, BigDecimal.valueOf(id, 2), LocalDate.of(2026, 1, 1).plusDays(id % 365)));
+                }
+                return page;
+            }, 5000);
+        }
+
+        List<Bill> first = new ArrayList<>();
+        long rows = ExcelUtils.read(file, Bill.class, ExcelUtils.DEFAULT_BATCH_SIZE, batch -> {
+            if (first.isEmpty()) {
+                first.add(batch.get(0));
+            }
+        });
+        Assertions.assertEquals(total, rows);
+        Assertions.assertEquals(new Bill(1L, "账单1", new BigDecimal("0.01"), LocalDate.of(2026, 1, 2)), first.get(0));
+        file.delete();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bill {
+        @ExcelColumn(value = "编号", order = 0)
+        private Long id;
+        @ExcelColumn(value = "名称", order = 1, width = 24)
+        private String name;
+        @ExcelColumn(value = "金额", order = 2, format = "#,##0.00")
+        private BigDecimal amount;
+        @ExcelColumn(value = "日期", order = 3)
+        private LocalDate date;
     }
 
 
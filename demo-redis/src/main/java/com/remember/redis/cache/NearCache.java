@@ -0,0 +1,238 @@
+package com.remember.redis.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remember.redis.config.NearCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 本地近端缓存(L1)，放在 RedisUtils 读操作前面，用于配置类的热点key
+ * <p>
+ * 1. 只缓存命中 near-cache.prefixes 的key，容量和存活时间有上限，淘汰策略为 Caffeine 的 W-TinyLFU<br>
+ * 2. 同一个key并发未命中时只有一个线程回源redis，其余线程等待结果<br>
+ * 3. 写入时删除本地缓存并通过 redis pub/sub 通知其它节点删除，也可以订阅键空间通知<br>
+ * 4. hash 按 key 分组缓存各项，删除一个 key 只移除该组；回源期间发生失效时结果不放入缓存<br>
+ * 5. 命中/未命中按前缀记录到 near.cache.gets 指标
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Component
+public class NearCache implements MessageListener {
+
+    /**
+     * 版本号分段数
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    private static final String KEYSPACE_SEPARATOR = "__:";
+
+    private final NearCacheProperties properties;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 普通key -> 值
+     */
+    private final Cache<String, Object> values;
+
+    /**
+     * hash key -> (项 -> 值)，失效时整组移除
+     */
+    private final Cache<String, ConcurrentMap<Object, Object>> hashes;
+
+    /**
+     * 按key分段的版本号，失效时递增；回源前后版本不一致说明期间有写入，结果不放入缓存
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public NearCache(NearCacheProperties properties, RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.values = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+        this.hashes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * 是否进入本地缓存
+     *
+     * @param key 键
+     * @return 开启且命中前缀
+     */
+    public boolean accepts(String key) {
+        return prefixOf(key) != null;
+    }
+
+    /**
+     * 读取普通缓存
+     *
+     * @param key    键
+     * @param loader 未命中时回源redis
+     * @return 值
+     */
+    public Object get(String key, Supplier<Object> loader) {
+        Counter[] prefixCounters = countersOf(key);
+        if (prefixCounters == null) {
+            return loader.get();
+        }
+        return load(key, values.asMap(), key, loader, prefixCounters);
+    }
+
+    /**
+     * 读取hash中的一项
+     *
+     * @param key    键
+     * @param item   项
+     * @param loader 未命中时回源redis
+     * @return 值
+     */
+    public Object get(String key, String item, Supplier<Object> loader) {
+        Counter[] prefixCounters = countersOf(key);
+        if (prefixCounters == null) {
+            return loader.get();
+        }
+        ConcurrentMap<Object, Object> items = hashes.get(key, k -> new ConcurrentHashMap<>());
+        return load(key, items, item, loader, prefixCounters);
+    }
+
+    private Counter[] countersOf(String key) {
+        String prefix = prefixOf(key);
+        return prefix == null ? null : counters.computeIfAbsent(prefix, this::registerCounters);
+    }
+
+    /**
+     * 同一项并发未命中时只回源一次；回源前后版本号不一致时不缓存结果，
+     * 避免失效之前读到的旧值在失效之后被放回缓存
+     */
+    private <K> Object load(String key, ConcurrentMap<K, Object> map, K cacheKey, Supplier<Object> loader, Counter[] prefixCounters) {
+        Object value = map.get(cacheKey);
+        if (value != null) {
+            prefixCounters[0].increment();
+            return value;
+        }
+        prefixCounters[1].increment();
+        long version = versions.get(stripe(key));
+        boolean[] loaded = new boolean[1];
+        Object[] result = new Object[1];
+        // 值为null时不缓存
+        value = map.computeIfAbsent(cacheKey, k -> {
+            loaded[0] = true;
+            result[0] = loader.get();
+            return versions.get(stripe(key)) == version ? result[0] : null;
+        });
+        if (value != null) {
+            return value;
+        }
+        // 本线程回源但结果未缓存，或等待的其它线程回源结果未缓存
+        return loaded[0] ? result[0] : loader.get();
+    }
+
+    private Counter[] registerCounters(String prefix) {
+        return new Counter[]{
+                Counter.builder("near.cache.gets").tag("prefix", prefix).tag("result", "hit").register(meterRegistry),
+                Counter.builder("near.cache.gets").tag("prefix", prefix).tag("result", "miss").register(meterRegistry)
+        };
+    }
+
+    /**
+     * 写入后调用，删除本地缓存并通知其它节点
+     *
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        invalidate(Collections.singletonList(key));
+    }
+
+    /**
+     * 写入后调用，删除本地缓存并通知其它节点，多个key只发布一次
+     *
+     * @param keys 键
+     */
+    public void invalidate(Collection<String> keys) {
+        List<String> cachedKeys = keys.stream().filter(this::accepts).collect(Collectors.toList());
+        if (cachedKeys.isEmpty()) {
+            return;
+        }
+        cachedKeys.forEach(this::invalidateLocal);
+        try {
+            redisTemplate.convertAndSend(properties.getTopic(), cachedKeys);
+        } catch (Exception e) {
+            // 通知失败时其它节点依靠ttl过期
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 收到失效通知
+     *
+     * @param message 消息
+     * @param pattern 订阅的模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        if (channel.equals(properties.getTopic())) {
+            Object keys = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (keys instanceof Collection) {
+                ((Collection<?>) keys).forEach(key -> invalidateLocal(String.valueOf(key)));
+            }
+            return;
+        }
+        // 键空间通知 __keyspace@<db>__:<key>
+        int index = channel.indexOf(KEYSPACE_SEPARATOR);
+        if (index > 0) {
+            invalidateLocal(channel.substring(index + KEYSPACE_SEPARATOR.length()));
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        // 先递增版本号，正在回源的线程不会再缓存旧值
+        versions.incrementAndGet(stripe(key));
+        values.invalidate(key);
+        hashes.invalidate(key);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    private String prefixOf(String key) {
+        if (!Boolean.TRUE.equals(properties.getEnabled()) || key == null) {
+            return null;
+        }
+        for (String prefix : properties.getPrefixes()) {
+            if (key.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+}
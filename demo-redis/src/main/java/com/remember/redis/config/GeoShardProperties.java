@@ -0,0 +1,44 @@
+package com.remember.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * geo 分片索引配置
+ * <p>
+ * 按坐标的 geohash 前缀把点分散到 {keyPrefix}:{geohash} 多个key上，避免单个 geo key 过大成为热点，
+ * 集群模式下不同前缀落在不同slot
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "geo-shard")
+public class GeoShardProperties {
+
+    /**
+     * 分片key前缀
+     */
+    private String keyPrefix = "home:geo";
+
+    /**
+     * 分片使用的 geohash 长度，4 约为 39km x 19.5km 一个分片，
+     * 已有数据时修改需要重新导入
+     */
+    private Integer precision = 4;
+
+    /**
+     * 批量导入时每个pipeline包含的点数
+     */
+    private Integer batchSize = 1000;
+
+    /**
+     * 本地缓存已有分片列表的时间，查询时只访问存在的分片
+     */
+    private Duration shardsCacheTtl = Duration.ofSeconds(30);
+
+}
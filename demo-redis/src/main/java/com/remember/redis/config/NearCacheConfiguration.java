@@ -0,0 +1,37 @@
+package com.remember.redis.config;
+
+import com.remember.redis.cache.NearCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 本地近端缓存失效通知订阅，near-cache.enabled=true 时生效
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Configuration
+@ConditionalOnProperty(prefix = NearCacheProperties.PREFIX, name = "enabled", havingValue = "true")
+public class NearCacheConfiguration {
+
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory factory,
+                                                                    NearCache nearCache,
+                                                                    NearCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(nearCache, new ChannelTopic(properties.getTopic()));
+        if (Boolean.TRUE.equals(properties.getKeyspaceNotifications())) {
+            for (String prefix : properties.getPrefixes()) {
+                container.addMessageListener(nearCache, new PatternTopic("__keyspace@*__:" + prefix + "*"));
+            }
+        }
+        return container;
+    }
+
+}
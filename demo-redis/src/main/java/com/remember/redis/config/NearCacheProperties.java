@@ -0,0 +1,55 @@
+package com.remember.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地近端缓存(L1)配置
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = NearCacheProperties.PREFIX)
+public class NearCacheProperties {
+
+    public static final String PREFIX = "near-cache";
+
+    /**
+     * 是否开启，默认关闭
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 本地最多缓存的条数，超出后按 W-TinyLFU 淘汰
+     */
+    private Long maximumSize = 10000L;
+
+    /**
+     * 写入后的存活时间，兜底未收到失效通知的情况
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * 需要本地缓存的key前缀，只有命中前缀的key才会进入本地缓存，命中率也按前缀统计
+     */
+    private List<String> prefixes = new ArrayList<>();
+
+    /**
+     * 集群失效通知的频道
+     */
+    private String topic = "near-cache:invalidate";
+
+    /**
+     * 是否同时订阅redis键空间通知，需要redis开启 notify-keyspace-events，
+     * 开启后不经过 RedisUtils 的写入(其它服务、过期、淘汰)也能让本地缓存失效
+     */
+    private Boolean keyspaceNotifications = false;
+
+}
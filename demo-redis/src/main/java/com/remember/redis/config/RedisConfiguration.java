@@ -1,5 +1,6 @@
 package com.remember.redis.config;
 
+import com.remember.redis.serializer.CompactRedisSerializer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -15,11 +16,11 @@ import org.springframework.stereotype.Component;
 public class RedisConfiguration {
 
     /**
-     * 创建 RedisTemplate Bean，使用 JSON 序列化方式
+     * 创建 RedisTemplate Bean，value 序列化方式见 {@link RedisSerializerProperties}，默认 JSON
      */
     @Bean
     @ConditionalOnMissingBean(name = "redisTemplate")
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory, RedisSerializerProperties properties) {
         // 创建 RedisTemplate 对象
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         // 设置 RedisConnection 工厂
@@ -28,9 +29,11 @@ public class RedisConfiguration {
         // 使用 String 序列化方式，序列化 KEY 。
         template.setKeySerializer(RedisSerializer.string());
         template.setHashKeySerializer(RedisSerializer.string());
-        // 使用 JSON 序列化方式（库是 Jackson ），序列化 VALUE 。
-        template.setValueSerializer(RedisSerializer.json());
-        template.setHashValueSerializer(RedisSerializer.json());
+        // 序列化 VALUE，读取时兼容 JSON（库是 Jackson ）旧数据
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(properties.getFormat(),
+                properties.getCompression(), properties.getCompressThreshold());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         return template;
     }
 
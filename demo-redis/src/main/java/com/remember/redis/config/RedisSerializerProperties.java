@@ -0,0 +1,55 @@
+package com.remember.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * redis value 序列化配置
+ * <p>
+ * 读取时根据头部字节自动识别格式，可以先全量发布新版本(能读新旧格式)，再切换写入格式
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "redis-serializer")
+public class RedisSerializerProperties {
+
+    /**
+     * 写入格式，JSON 且不压缩时与原来的 RedisSerializer.json() 完全一致
+     */
+    private Format format = Format.JSON;
+
+    /**
+     * 压缩算法
+     */
+    private Compression compression = Compression.NONE;
+
+    /**
+     * 序列化后超过该字节数才压缩
+     */
+    private Integer compressThreshold = 1024;
+
+    public enum Format {
+        /**
+         * jackson json，带类名
+         */
+        JSON,
+        /**
+         * jackson smile 二进制json
+         */
+        SMILE,
+        /**
+         * kryo 二进制
+         */
+        KRYO
+    }
+
+    public enum Compression {
+        NONE,
+        LZ4
+    }
+
+}
@@ -1,11 +1,24 @@
 package com.remember.redis.service;
 
+import com.remember.redis.config.GeoShardProperties;
+import com.remember.redis.entity.GeoHashData;
+import com.remember.redis.utils.GeoHashUtils;
 import org.springframework.data.geo.*;
 import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * redis geo hash template
@@ -16,10 +29,28 @@ import java.util.List;
 @Component
 public class GeoHashService {
 
+    /**
+     * redis GEO 计算距离使用的地球半径(米)
+     */
+    private static final double EARTH_RADIUS_IN_METERS = 6372797.560856;
+
     private final RedisTemplate<String, Object> redisTemplate;
 
-    public GeoHashService(RedisTemplate<String, Object> redisTemplate) {
+    private final GeoShardProperties properties;
+
+    private final String shardsKey;
+
+    /**
+     * 已有分片的本地缓存
+     */
+    private volatile Set<String> shards;
+
+    private volatile long shardsLoadedAt;
+
+    public GeoHashService(RedisTemplate<String, Object> redisTemplate, GeoShardProperties properties) {
         this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.shardsKey = properties.getKeyPrefix() + ":shards";
     }
 
     public final String KEY = "home:geo";
@@ -38,12 +69,14 @@ public class GeoHashService {
                 {"121.947222", "30.903604", "滴水湖"}
         };
 
+        Map<Object, Point> points = new LinkedHashMap<>();
         for (String[] strings : array) {
             double x = Double.parseDouble(strings[0]);
             double y = Double.parseDouble(strings[1]);
-            Point point = new Point(x, y);
-            Long aLong = redisTemplate.opsForGeo().add(KEY, point, strings[2]);
+            points.put(strings[2], new Point(x, y));
         }
+        // 一条 GEOADD 写入所有点
+        Long aLong = redisTemplate.opsForGeo().add(KEY, points);
     }
 
     /**
@@ -113,4 +146,235 @@ public class GeoHashService {
     }
 
 
+    /**
+     * 从csv导入分片索引，每行格式为 经度,纬度,名称，空行和 # 开头的行会被跳过
+     * <p>
+     * 逐行读取，按 batchSize 分批写入，不会把整个文件读入内存
+     *
+     * @param reader csv
+     * @return 导入的点数
+     */
+    public long importCsv(Reader reader) {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        try (Stream<String> lines = bufferedReader.lines()) {
+            return bulkAdd(lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(line -> {
+                        String[] columns = line.split(",", 3);
+                        if (columns.length < 3) {
+                            throw new IllegalArgumentException("csv格式错误: " + line);
+                        }
+                        return GeoHashData.builder()
+                                .longitude(new BigDecimal(columns[0].trim()))
+                                .latitude(new BigDecimal(columns[1].trim()))
+                                .member(columns[2].trim())
+                                .build();
+                    }));
+        } catch (UncheckedIOException e) {
+            throw new IllegalStateException("读取csv失败", e.getCause());
+        }
+    }
+
+    /**
+     * 批量写入分片索引
+     * <p>
+     * 每 batchSize 个点按分片分组，每个分片一条 GEOADD，整批通过一次pipeline发送，
+     * 同时登记分片key，查询时只访问存在的分片
+     *
+     * @param data 坐标数据，流式消费
+     * @return 写入的点数
+     */
+    public long bulkAdd(Stream<GeoHashData> data) {
+        int batchSize = properties.getBatchSize();
+        List<GeoHashData> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        Iterator<GeoHashData> iterator = data.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= batchSize) {
+                count += flush(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += flush(batch);
+        }
+        return count;
+    }
+
+    /**
+     * 批量写入分片索引
+     *
+     * @param data 坐标数据
+     * @return 写入的点数
+     */
+    public long bulkAdd(Collection<GeoHashData> data) {
+        return bulkAdd(data.stream());
+    }
+
+    /**
+     * 以给定的经纬度为中心，在分片索引中查找距离不超过 radius 的点，按距离升序返回
+     * <p>
+     * 只查询与圆外接矩形相交且存在的分片，各分片的 GEORADIUS 在一次pipeline中发送，
+     * 每个分片结果已按距离升序并最多返回 limit 条，再通过小顶堆做 k 路归并取前 limit 条
+     *
+     * @param longitude 经度
+     * @param latitude  纬度
+     * @param radius    半径
+     * @param limit     返回数量
+     * @return 结果，包含坐标和距离
+     */
+    @SuppressWarnings("unchecked")
+    public GeoResults<RedisGeoCommands.GeoLocation<Object>> radius(double longitude, double latitude, Distance radius, long limit) {
+        List<String> keys = coveringShards(longitude, latitude, radius);
+        if (keys.isEmpty() || limit <= 0) {
+            return new GeoResults<>(Collections.emptyList(), radius.getMetric());
+        }
+
+        Circle circle = new Circle(new Point(longitude, latitude), radius);
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .includeDistance().includeCoordinates().sortAscending().limit(limit);
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.geoCommands().geoRadius(keySerializer.serialize(key), circle, args);
+            }
+            return null;
+        });
+
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        PriorityQueue<ShardCursor> heap = new PriorityQueue<>(keys.size());
+        for (Object result : results) {
+            if (result instanceof GeoResults) {
+                List<GeoResult<RedisGeoCommands.GeoLocation<Object>>> content = ((GeoResults<RedisGeoCommands.GeoLocation<Object>>) result).getContent();
+                if (!content.isEmpty()) {
+                    heap.add(new ShardCursor(content));
+                }
+            }
+        }
+
+        List<GeoResult<RedisGeoCommands.GeoLocation<Object>>> merged = new ArrayList<>();
+        while (!heap.isEmpty() && merged.size() < limit) {
+            ShardCursor cursor = heap.poll();
+            GeoResult<RedisGeoCommands.GeoLocation<Object>> current = cursor.current();
+            RedisGeoCommands.GeoLocation<Object> location = current.getContent();
+            // pipeline 返回的名称是原始字节
+            Object name = location.getName() instanceof byte[] ? valueSerializer.deserialize((byte[]) location.getName()) : location.getName();
+            merged.add(new GeoResult<>(new RedisGeoCommands.GeoLocation<>(name, location.getPoint()), current.getDistance()));
+            if (cursor.next()) {
+                heap.add(cursor);
+            }
+        }
+        return new GeoResults<>(merged, radius.getMetric());
+    }
+
+    /**
+     * 坐标所在的分片key
+     */
+    public String shardKey(double longitude, double latitude) {
+        return properties.getKeyPrefix() + ":" + GeoHashUtils.encode(longitude, latitude, properties.getPrecision());
+    }
+
+    private long flush(List<GeoHashData> batch) {
+        Map<String, Map<Object, Point>> grouped = new LinkedHashMap<>();
+        for (GeoHashData data : batch) {
+            double x = data.getLongitude().doubleValue();
+            double y = data.getLatitude().doubleValue();
+            grouped.computeIfAbsent(shardKey(x, y), key -> new LinkedHashMap<>()).put(data.getMember(), new Point(x, y));
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                grouped.forEach((key, points) -> ops.opsForGeo().add(key, points));
+                ops.opsForSet().add(shardsKey, grouped.keySet().toArray());
+                return null;
+            }
+        });
+        Set<String> cached = shards;
+        if (cached != null && !cached.containsAll(grouped.keySet())) {
+            Set<String> updated = new HashSet<>(cached);
+            updated.addAll(grouped.keySet());
+            shards = updated;
+        }
+        return batch.size();
+    }
+
+    /**
+     * 与查询圆外接矩形相交的已有分片
+     * <p>
+     * 覆盖的单元格数量不超过已有分片数时枚举单元格，否则(半径很大)逐个判断已有分片是否相交
+     */
+    private List<String> coveringShards(double longitude, double latitude, Distance radius) {
+        double meters = radius.getNormalizedValue() * Metrics.KILOMETERS.getMultiplier() * 1000;
+        double angular = meters / EARTH_RADIUS_IN_METERS;
+        double deltaLat = Math.toDegrees(angular);
+        double minLat = Math.max(-90, latitude - deltaLat);
+        double maxLat = Math.min(90, latitude + deltaLat);
+        double minLon = -180, maxLon = 180;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        // 圆不包含极点时才能收窄经度范围，跨越 ±180 经线时同样退化为全经度
+        if (minLat > -90 && maxLat < 90 && Math.sin(angular) < cosLat) {
+            double deltaLon = Math.toDegrees(Math.asin(Math.sin(angular) / cosLat));
+            if (longitude - deltaLon >= -180 && longitude + deltaLon <= 180) {
+                minLon = longitude - deltaLon;
+                maxLon = longitude + deltaLon;
+            }
+        }
+
+        Set<String> existing = loadShards();
+        String prefix = properties.getKeyPrefix() + ":";
+        int precision = properties.getPrecision();
+        if (GeoHashUtils.coverSize(minLon, minLat, maxLon, maxLat, precision) <= existing.size()) {
+            return GeoHashUtils.cover(minLon, minLat, maxLon, maxLat, precision).stream()
+                    .map(cell -> prefix + cell)
+                    .filter(existing::contains)
+                    .collect(Collectors.toList());
+        }
+        final double west = minLon, east = maxLon;
+        return existing.stream()
+                .filter(key -> key.startsWith(prefix) && key.length() - prefix.length() == precision)
+                .filter(key -> GeoHashUtils.intersects(key.substring(prefix.length()), west, minLat, east, maxLat))
+                .collect(Collectors.toList());
+    }
+
+    private Set<String> loadShards() {
+        Set<String> cached = shards;
+        long now = System.currentTimeMillis();
+        if (cached == null || now - shardsLoadedAt > properties.getShardsCacheTtl().toMillis()) {
+            Set<Object> members = redisTemplate.opsForSet().members(shardsKey);
+            cached = members == null ? new HashSet<>() : members.stream().map(String::valueOf).collect(Collectors.toSet());
+            shards = cached;
+            shardsLoadedAt = now;
+        }
+        return cached;
+    }
+
+    /**
+     * 单个分片结果的读取位置，按当前元素的距离比较
+     */
+    private static class ShardCursor implements Comparable<ShardCursor> {
+
+        private final List<GeoResult<RedisGeoCommands.GeoLocation<Object>>> results;
+
+        private int index;
+
+        ShardCursor(List<GeoResult<RedisGeoCommands.GeoLocation<Object>>> results) {
+            this.results = results;
+        }
+
+        GeoResult<RedisGeoCommands.GeoLocation<Object>> current() {
+            return results.get(index);
+        }
+
+        boolean next() {
+            return ++index < results.size();
+        }
+
+        @Override
+        public int compareTo(ShardCursor other) {
+            return Double.compare(current().getDistance().getValue(), other.current().getDistance().getValue());
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package com.remember.redis.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * geohash 编码工具，用于 geo 分片
+ * <p>
+ * 经度、纬度分别等分为 2^n 个格子，按 经度、纬度 交替取位组成 base32 字符串，
+ * 相同前缀的点在同一个矩形单元格内
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public final class GeoHashUtils {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+        }
+    }
+
+    private GeoHashUtils() {
+    }
+
+    /**
+     * 计算坐标的 geohash
+     *
+     * @param longitude 经度
+     * @param latitude  纬度
+     * @param precision 长度 1-12
+     * @return geohash
+     */
+    public static String encode(double longitude, double latitude, int precision) {
+        checkPrecision(precision);
+        return encode(lonIndex(longitude, precision), latIndex(latitude, precision), precision);
+    }
+
+    /**
+     * 矩形范围覆盖的单元格数量
+     */
+    public static long coverSize(double minLon, double minLat, double maxLon, double maxLat, int precision) {
+        checkPrecision(precision);
+        return (lonIndex(maxLon, precision) - lonIndex(minLon, precision) + 1)
+                * (latIndex(maxLat, precision) - latIndex(minLat, precision) + 1);
+    }
+
+    /**
+     * 与矩形范围相交的所有单元格，数量可以先通过 coverSize 判断
+     *
+     * @return geohash 列表
+     */
+    public static List<String> cover(double minLon, double minLat, double maxLon, double maxLat, int precision) {
+        checkPrecision(precision);
+        long lonFrom = lonIndex(minLon, precision), lonTo = lonIndex(maxLon, precision);
+        long latFrom = latIndex(minLat, precision), latTo = latIndex(maxLat, precision);
+        List<String> cells = new ArrayList<>();
+        for (long lon = lonFrom; lon <= lonTo; lon++) {
+            for (long lat = latFrom; lat <= latTo; lat++) {
+                cells.add(encode(lon, lat, precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * 单元格是否与矩形范围相交
+     *
+     * @param geohash geohash
+     */
+    public static boolean intersects(String geohash, double minLon, double minLat, double maxLon, double maxLat) {
+        int precision = geohash.length();
+        checkPrecision(precision);
+        long lon = 0, lat = 0;
+        boolean even = true;
+        for (int i = 0; i < precision; i++) {
+            char c = geohash.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("非法的geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                if (even) {
+                    lon = lon << 1 | (value >> bit & 1);
+                } else {
+                    lat = lat << 1 | (value >> bit & 1);
+                }
+                even = !even;
+            }
+        }
+        return lon >= lonIndex(minLon, precision) && lon <= lonIndex(maxLon, precision)
+                && lat >= latIndex(minLat, precision) && lat <= latIndex(maxLat, precision);
+    }
+
+    private static String encode(long lonIndex, long latIndex, int precision) {
+        int lonBit = lonBits(precision) - 1;
+        int latBit = latBits(precision) - 1;
+        char[] chars = new char[precision];
+        boolean even = true;
+        for (int i = 0; i < precision; i++) {
+            int ch = 0;
+            for (int j = 0; j < 5; j++) {
+                long bit = even ? lonIndex >>> lonBit-- & 1 : latIndex >>> latBit-- & 1;
+                ch = ch << 1 | (int) bit;
+                even = !even;
+            }
+            chars[i] = BASE32[ch];
+        }
+        return new String(chars);
+    }
+
+    private static long lonIndex(double longitude, int precision) {
+        return index((longitude + 180) / 360, lonBits(precision));
+    }
+
+    private static long latIndex(double latitude, int precision) {
+        return index((latitude + 90) / 180, latBits(precision));
+    }
+
+    private static long index(double ratio, int bits) {
+        long max = (1L << bits) - 1;
+        long index = (long) Math.floor(ratio * (1L << bits));
+        return Math.max(0, Math.min(max, index));
+    }
+
+    /**
+     * 第一位是经度，经度位数向上取整
+     */
+    private static int lonBits(int precision) {
+        return (precision * 5 + 1) / 2;
+    }
+
+    private static int latBits(int precision) {
+        return precision * 5 / 2;
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("geohash长度需要在1-" + MAX_PRECISION + "之间");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.remember.redis.utils;
+
+import com.remember.redis.cache.NearCache;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 批量写入，命令先在本地收集，execute 时通过 executePipelined 一次发送，
+ * 带过期时间的写入与 EXPIRE 在同一批次中，不再额外产生一次网络往返
+ * <pre>
+ *     redisUtils.batch()
+ *             .set("user:1", user, 60)
+ *             .hset("config", "a", 1, 300)
+ *             .execute();
+ * </pre>
+ * 命令数超过 pipelineSize 时按 pipelineSize 分批发送，避免单次pipeline占用过多内存
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@SuppressWarnings({"unchecked", "all"})
+public class RedisBatch {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final NearCache nearCache;
+
+    private final int pipelineSize;
+
+    private final List<Consumer<RedisOperations<String, Object>>> commands = new ArrayList<>();
+
+    /**
+     * 写入过的key，执行后统一使本地缓存失效
+     */
+    private final Set<String> keys = new LinkedHashSet<>();
+
+    RedisBatch(RedisTemplate<String, Object> redisTemplate, NearCache nearCache, int pipelineSize) {
+        this.redisTemplate = redisTemplate;
+        this.nearCache = nearCache;
+        if (pipelineSize < 1) {
+            throw new IllegalArgumentException("pipelineSize must be positive: " + pipelineSize);
+        }
+        this.pipelineSize = pipelineSize;
+    }
+
+    /**
+     * 普通缓存放入
+     *
+     * @param key   键
+     * @param value 值
+     * @return this
+     */
+    public RedisBatch set(String key, Object value) {
+        commands.add(ops -> ops.opsForValue().set(key, value));
+        touch(key);
+        return this;
+    }
+
+    /**
+     * 普通缓存放入并设置时间，使用 SET EX 一条命令完成
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒) time要大于0 如果time小于等于0 将设置无限期
+     * @return this
+     */
+    public RedisBatch set(String key, Object value, long time) {
+        return set(key, value, time, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 普通缓存放入并设置时间
+     *
+     * @param key      键
+     * @param value    值
+     * @param time     时间
+     * @param timeUnit 类型
+     * @return this
+     */
+    public RedisBatch set(String key, Object value, long time, TimeUnit timeUnit) {
+        if (time > 0) {
+            commands.add(ops -> ops.opsForValue().set(key, value, time, timeUnit));
+            touch(key);
+            return this;
+        }
+        return set(key, value);
+    }
+
+    /**
+     * 批量放入并设置相同的过期时间
+     *
+     * @param map  键值
+     * @param time 时间(秒)
+     * @return this
+     */
+    public RedisBatch multiSet(Map<String, Object> map, long time) {
+        map.forEach((key, value) -> set(key, value, time));
+        return this;
+    }
+
+    /**
+     * 向一张hash表中放入数据
+     *
+     * @param key   键
+     * @param item  项
+     * @param value 值
+     * @param time  时间(秒) 注意:如果已存在的hash表有时间,这里将会替换原有的时间
+     * @return this
+     */
+    public RedisBatch hset(String key, String item, Object value, long time) {
+        commands.add(ops -> ops.opsForHash().put(key, item, value));
+        touch(key);
+        return expire(key, time);
+    }
+
+    /**
+     * HashSet 并设置时间
+     *
+     * @param key  键
+     * @param map  对应多个键值
+     * @param time 时间(秒)
+     * @return this
+     */
+    public RedisBatch hmset(String key, Map<String, Object> map, long time) {
+        commands.add(ops -> ops.opsForHash().putAll(key, map));
+        touch(key);
+        return expire(key, time);
+    }
+
+    /**
+     * 将数据放入set缓存
+     *
+     * @param key    键
+     * @param time   时间(秒)
+     * @param values 值 可以是多个
+     * @return this
+     */
+    public RedisBatch sSet(String key, long time, Object... values) {
+        commands.add(ops -> ops.opsForSet().add(key, values));
+        touch(key);
+        return expire(key, time);
+    }
+
+    /**
+     * 将list放入缓存
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒)
+     * @return this
+     */
+    public RedisBatch lSet(String key, Object value, long time) {
+        commands.add(ops -> ops.opsForList().rightPush(key, value));
+        touch(key);
+        return expire(key, time);
+    }
+
+    /**
+     * 将list放入缓存
+     *
+     * @param key    键
+     * @param values 值
+     * @param time   时间(秒)
+     * @return this
+     */
+    public RedisBatch lSetList(String key, List<Object> values, long time) {
+        commands.add(ops -> ops.opsForList().rightPushAll(key, values));
+        touch(key);
+        return expire(key, time);
+    }
+
+    /**
+     * 指定缓存失效时间，time小于等于0时忽略
+     *
+     * @param key  键
+     * @param time 时间(秒)
+     * @return this
+     */
+    public RedisBatch expire(String key, long time) {
+        if (time > 0) {
+            commands.add(ops -> ops.expire(key, time, TimeUnit.SECONDS));
+        }
+        return this;
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key 键
+     * @return this
+     */
+    public RedisBatch del(String key) {
+        commands.add(ops -> ops.delete(key));
+        touch(key);
+        return this;
+    }
+
+    private void touch(String key) {
+        if (nearCache.accepts(key)) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * @return 已收集的命令数
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 发送所有命令
+     *
+     * @return 每条命令的结果，顺序与添加顺序一致
+     */
+    public List<Object> execute() {
+        List<Object> results = new ArrayList<>(commands.size());
+        try {
+            for (int from = 0; from < commands.size(); from += pipelineSize) {
+                List<Consumer<RedisOperations<String, Object>>> chunk = commands.subList(from, Math.min(from + pipelineSize, commands.size()));
+                results.addAll(redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        chunk.forEach(command -> command.accept(ops));
+                        return null;
+                    }
+                }));
+            }
+            return results;
+        } finally {
+            // 部分分批失败时已发送的写入可能已生效，本地缓存同样要失效
+            commands.clear();
+            nearCache.invalidate(keys);
+            keys.clear();
+        }
+    }
+
+}
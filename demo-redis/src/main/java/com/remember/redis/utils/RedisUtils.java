@@ -16,21 +16,26 @@
 package com.remember.redis.utils;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.remember.redis.cache.NearCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.geo.*;
-import org.springframework.data.redis.connection.RedisConnection;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisGeoCommands;
 import org.springframework.data.redis.core.Cursor;
-import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 基于redisTemplate的redis操作
@@ -40,10 +45,29 @@ import java.util.concurrent.TimeUnit;
 @Component
 @SuppressWarnings({"unchecked", "all"})
 public class RedisUtils {
+
+    /**
+     * SCAN 默认 COUNT
+     */
+    public static final long DEFAULT_SCAN_COUNT = 1000;
+
+    /**
+     * 批量删除默认每批key数量
+     */
+    public static final int DEFAULT_DELETE_BATCH_SIZE = 500;
+
+    /**
+     * 批量写入默认每个pipeline的命令数
+     */
+    public static final int DEFAULT_PIPELINE_SIZE = 1000;
+
     private final RedisTemplate<String, Object> redisTemplate;
 
-    public RedisUtils(RedisTemplate<String, Object> redisTemplate) {
+    private final NearCache nearCache;
+
+    public RedisUtils(RedisTemplate<String, Object> redisTemplate, NearCache nearCache) {
         this.redisTemplate = redisTemplate;
+        this.nearCache = nearCache;
     }
 
     /**
@@ -97,29 +121,118 @@ public class RedisUtils {
 
     /**
      * 查找匹配key
+     * <p>
+     * 会把所有匹配的key放进内存，key较多时使用 {@link #scanStream(String, long)} 或 {@link #scanPages(String, int, Consumer)}
      *
      * @param pattern key
      * @return /
      */
     public List<String> scan(String pattern) {
-        ScanOptions options = ScanOptions.scanOptions().match(pattern).build();
-        RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
-        RedisConnection rc = Objects.requireNonNull(factory).getConnection();
-        Cursor<byte[]> cursor = rc.scan(options);
-        List<String> result = new ArrayList<>();
-        while (cursor.hasNext()) {
-            result.add(new String(cursor.next()));
+        try (Stream<String> keys = scanStream(pattern, DEFAULT_SCAN_COUNT)) {
+            return keys.collect(Collectors.toList());
         }
+    }
+
+    /**
+     * 流式查找匹配key，按需向redis发起 SCAN，不会一次性加载全部key
+     * <p>
+     * 集群模式下 SCAN 只遍历收到命令的节点，这里对每个主节点各开一个游标依次遍历<br>
+     * 流占用redis连接，使用完必须关闭，建议放在 try-with-resources 中
+     *
+     * @param pattern key
+     * @param count   每次 SCAN 的 COUNT
+     * @return 匹配的key
+     */
+    public Stream<String> scanStream(String pattern, long count) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        List<Cursor<byte[]>> cursors = new ArrayList<>();
         try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
+            List<RedisClusterNode> masters = clusterMasters();
+            if (masters.isEmpty()) {
+                cursors.add(redisTemplate.executeWithStickyConnection(connection -> connection.scan(options)));
+            } else {
+                for (RedisClusterNode node : masters) {
+                    cursors.add(redisTemplate.executeWithStickyConnection(
+                            connection -> ((RedisClusterConnection) connection).scan(node, options)));
+                }
+            }
+        } catch (RuntimeException e) {
+            closeCursors(cursors);
+            throw e;
         }
-        return result;
+        return cursors.stream()
+                .flatMap(cursor -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(Objects.requireNonNull(cursor), Spliterator.NONNULL), false))
+                .map(key -> new String(key, StandardCharsets.UTF_8))
+                .onClose(() -> closeCursors(cursors));
+    }
+
+    /**
+     * 集群模式下的主节点，非集群返回空
+     */
+    private List<RedisClusterNode> clusterMasters() {
+        List<RedisClusterNode> masters = redisTemplate.execute((RedisCallback<List<RedisClusterNode>>) connection -> {
+            if (!(connection instanceof RedisClusterConnection)) {
+                return Collections.emptyList();
+            }
+            List<RedisClusterNode> nodes = new ArrayList<>();
+            for (RedisClusterNode node : ((RedisClusterConnection) connection).clusterGetNodes()) {
+                if (node.isMaster()) {
+                    nodes.add(node);
+                }
+            }
+            return nodes;
+        });
+        return masters == null ? Collections.emptyList() : masters;
+    }
+
+    private void closeCursors(List<Cursor<byte[]>> cursors) {
+        for (Cursor<byte[]> cursor : cursors) {
+            try {
+                cursor.close();
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 按页遍历匹配key，每页交给 consumer 处理，翻页开销与页码无关
+     * <p>
+     * 基于 {@link #scanStream(String, long)}，每次 SCAN 只取 COUNT 个槽位，不会像在脚本中执行 SCAN 那样长时间阻塞redis
+     *
+     * @param pattern  key
+     * @param size     每页key数量，同时作为 SCAN 的 COUNT
+     * @param consumer 处理每一页key
+     * @return 遍历的key总数
+     */
+    public long scanPages(String pattern, int size, Consumer<List<String>> consumer) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1, but was " + size);
+        }
+        long count = 0;
+        List<String> page = new ArrayList<>(size);
+        try (Stream<String> keys = scanStream(pattern, size)) {
+            Iterator<String> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                page.add(iterator.next());
+                if (page.size() >= size) {
+                    count += page.size();
+                    consumer.accept(page);
+                    page = new ArrayList<>(size);
+                }
+            }
+        }
+        if (!page.isEmpty()) {
+            count += page.size();
+            consumer.accept(page);
+        }
+        return count;
     }
 
     /**
      * 分页查询 key
+     * <p>
+     * 每次都从头遍历，第N页需要扫过前N页的key，需要遍历全部key时使用 {@link #scanPages(String, int, Consumer)}
      *
      * @param patternKey key
      * @param page       页码
@@ -127,33 +240,9 @@ public class RedisUtils {
      * @return /
      */
     public List<String> findKeysForPage(String patternKey, int page, int size) {
-        ScanOptions options = ScanOptions.scanOptions().match(patternKey).build();
-        RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
-        RedisConnection rc = Objects.requireNonNull(factory).getConnection();
-        Cursor<byte[]> cursor = rc.scan(options);
-        List<String> result = new ArrayList<>(size);
-        int tmpIndex = 0;
-        int fromIndex = page * size;
-        int toIndex = page * size + size;
-        while (cursor.hasNext()) {
-            if (tmpIndex >= fromIndex && tmpIndex < toIndex) {
-                result.add(new String(cursor.next()));
-                tmpIndex++;
-                continue;
-            }
-            // 获取到满足条件的数据后,就可以退出了
-            if (tmpIndex >= toIndex) {
-                break;
-            }
-            tmpIndex++;
-            cursor.next();
+        try (Stream<String> keys = scanStream(patternKey, DEFAULT_SCAN_COUNT)) {
+            return keys.skip((long) page * size).limit(size).collect(Collectors.toList());
         }
-        try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
-        return result;
     }
 
     /**
@@ -174,54 +263,174 @@ public class RedisUtils {
     /**
      * 删除缓存
      *
-     * @param keys 可以传一个值 或多个
+     * @param keys 可以传一个值 或多个，多个时支持通配符
      */
     public void del(String... keys) {
         if (keys != null && keys.length > 0) {
             if (keys.length == 1) {
                 boolean result = redisTemplate.delete(keys[0]);
+                nearCache.invalidate(keys[0]);
                 log.debug("--------------------------------------------");
                 log.debug(new StringBuilder("删除缓存：").append(keys[0]).append("，结果：").append(result).toString());
                 log.debug("--------------------------------------------");
             } else {
-                Set<String> keySet = new HashSet<>();
-                for (String key : keys) {
-                    keySet.addAll(redisTemplate.keys(key));
-                }
-                long count = redisTemplate.delete(keySet);
+                long count = delByPatterns(Arrays.asList(keys), DEFAULT_DELETE_BATCH_SIZE);
                 log.debug("--------------------------------------------");
-                log.debug("成功删除缓存：" + keySet.toString());
+                log.debug("成功删除缓存：" + Arrays.toString(keys));
                 log.debug("缓存删除数量：" + count + "个");
                 log.debug("--------------------------------------------");
             }
         }
     }
 
+    /**
+     * 按通配符删除缓存，SCAN 遍历后分批 UNLINK，不使用阻塞的 KEYS
+     *
+     * @param pattern   key 通配符
+     * @param batchSize 每批删除的key数量，同时作为 SCAN 的 COUNT
+     * @return 删除数量
+     */
+    public long delByPattern(String pattern, int batchSize) {
+        long count = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Stream<String> keys = scanStream(pattern, batchSize)) {
+            Iterator<String> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize) {
+                    count += unlink(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += unlink(batch);
+        }
+        return count;
+    }
+
+    /**
+     * 批量删除，不含通配符的key直接分批 UNLINK，含通配符的按 {@link #delByPattern(String, int)} 删除
+     *
+     * @param patterns  key 或 key 通配符
+     * @param batchSize 每批删除的key数量
+     * @return 删除数量
+     */
+    private long delByPatterns(Collection<String> patterns, int batchSize) {
+        long count = 0;
+        List<String> batch = new ArrayList<>(Math.min(batchSize, patterns.size()));
+        for (String pattern : patterns) {
+            if (isPattern(pattern)) {
+                count += delByPattern(pattern, batchSize);
+                continue;
+            }
+            batch.add(pattern);
+            if (batch.size() >= batchSize) {
+                count += unlink(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            count += unlink(batch);
+        }
+        return count;
+    }
+
+    /**
+     * UNLINK 在后台线程释放内存，删除大key不会阻塞redis
+     */
+    private long unlink(Collection<String> keys) {
+        Long count = redisTemplate.unlink(keys);
+        nearCache.invalidate(keys);
+        return count == null ? 0 : count;
+    }
+
+    private static boolean isPattern(String key) {
+        return key.indexOf('*') >= 0 || key.indexOf('?') >= 0 || key.indexOf('[') >= 0;
+    }
+
     // ============================String=============================
 
     /**
-     * 普通缓存获取
+     * 普通缓存获取，key命中 near-cache.prefixes 时先读本地缓存
      *
      * @param key 键
      * @return 值
      */
     public Object get(String key) {
-        return key == null ? null : redisTemplate.opsForValue().get(key);
+        return key == null ? null : nearCache.get(key, () -> redisTemplate.opsForValue().get(key));
     }
 
     /**
      * 批量获取
      *
      * @param keys keys
-     * @return list
+     * @return list 与keys顺序一致，不存在的key不包含在结果中
      */
     public List<Object> multiGet(List<String> keys) {
-        List list = redisTemplate.opsForValue().multiGet(Sets.newHashSet(keys));
+        List list = redisTemplate.opsForValue().multiGet(keys);
         List resultList = Lists.newArrayList();
         Optional.ofNullable(list).ifPresent(e -> list.forEach(ele -> Optional.ofNullable(ele).ifPresent(resultList::add)));
         return resultList;
     }
 
+    /**
+     * 批量获取，一次 MGET
+     *
+     * @param keys keys
+     * @return key -> value，按keys顺序，不存在的key不包含在结果中
+     */
+    public Map<String, Object> multiGetMap(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<String, Object> result = new LinkedHashMap<>(keyList.size());
+        List<Object> values = redisTemplate.opsForValue().multiGet(keyList);
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < keyList.size(); i++) {
+            if (values.get(i) != null) {
+                result.put(keyList.get(i), values.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量放入并设置相同的过期时间，所有写入在pipeline中完成
+     *
+     * @param map  键值
+     * @param time 时间(秒) time要大于0 如果time小于等于0 将设置无限期
+     * @return true成功 false 失败
+     */
+    public boolean multiSet(Map<String, Object> map, long time) {
+        try {
+            batch().multiSet(map, time).execute();
+            return true;
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量写入，所有命令在 execute 时通过pipeline发送
+     *
+     * @return 批量写入
+     */
+    public RedisBatch batch() {
+        return batch(DEFAULT_PIPELINE_SIZE);
+    }
+
+    /**
+     * 批量写入
+     *
+     * @param pipelineSize 每个pipeline的命令数，必须大于0
+     * @return 批量写入
+     */
+    public RedisBatch batch(int pipelineSize) {
+        return new RedisBatch(redisTemplate, nearCache, pipelineSize);
+    }
+
     /**
      * 普通缓存放入
      *
@@ -232,6 +441,7 @@ public class RedisUtils {
     public boolean set(String key, Object value) {
         try {
             redisTemplate.opsForValue().set(key, value);
+            nearCache.invalidate(key);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -251,6 +461,7 @@ public class RedisUtils {
         try {
             if (time > 0) {
                 redisTemplate.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+                nearCache.invalidate(key);
             } else {
                 set(key, value);
             }
@@ -274,6 +485,7 @@ public class RedisUtils {
         try {
             if (time > 0) {
                 redisTemplate.opsForValue().set(key, value, time, timeUnit);
+                nearCache.invalidate(key);
             } else {
                 set(key, value);
             }
@@ -294,7 +506,7 @@ public class RedisUtils {
      * @return 值
      */
     public Object hget(String key, String item) {
-        return redisTemplate.opsForHash().get(key, item);
+        return nearCache.get(key, item, () -> redisTemplate.opsForHash().get(key, item));
     }
 
     /**
@@ -318,6 +530,7 @@ public class RedisUtils {
     public boolean hmset(String key, Map<String, Object> map) {
         try {
             redisTemplate.opsForHash().putAll(key, map);
+            nearCache.invalidate(key);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -335,10 +548,7 @@ public class RedisUtils {
      */
     public boolean hmset(String key, Map<String, Object> map, long time) {
         try {
-            redisTemplate.opsForHash().putAll(key, map);
-            if (time > 0) {
-                expire(key, time);
-            }
+            batch().hmset(key, map, time).execute();
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -357,6 +567,7 @@ public class RedisUtils {
     public boolean hset(String key, String item, Object value) {
         try {
             redisTemplate.opsForHash().put(key, item, value);
+            nearCache.invalidate(key);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -375,10 +586,7 @@ public class RedisUtils {
      */
     public boolean hset(String key, String item, Object value, long time) {
         try {
-            redisTemplate.opsForHash().put(key, item, value);
-            if (time > 0) {
-                expire(key, time);
-            }
+            batch().hset(key, item, value, time).execute();
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -394,6 +602,7 @@ public class RedisUtils {
      */
     public void hdel(String key, Object... item) {
         redisTemplate.opsForHash().delete(key, item);
+        nearCache.invalidate(key);
     }
 
     /**
@@ -416,7 +625,9 @@ public class RedisUtils {
      * @return 新的值
      */
     public double hincr(String key, String item, double by) {
-        return redisTemplate.opsForHash().increment(key, item, by);
+        double value = redisTemplate.opsForHash().increment(key, item, by);
+        nearCache.invalidate(key);
+        return value;
     }
 
     /**
@@ -428,7 +639,9 @@ public class RedisUtils {
      * @return 新的值
      */
     public double hdecr(String key, String item, double by) {
-        return redisTemplate.opsForHash().increment(key, item, -by);
+        double value = redisTemplate.opsForHash().increment(key, item, -by);
+        nearCache.invalidate(key);
+        return value;
     }
 
     // ============================set=============================
@@ -490,11 +703,8 @@ public class RedisUtils {
      */
     public long sSetAndTime(String key, long time, Object... values) {
         try {
-            Long count = redisTemplate.opsForSet().add(key, values);
-            if (time > 0) {
-                expire(key, time);
-            }
-            return count;
+            List<Object> results = batch().sSet(key, time, values).execute();
+            return (Long) results.get(0);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return 0;
@@ -610,10 +820,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, Object value, long time) {
         try {
-            redisTemplate.opsForList().rightPush(key, value);
-            if (time > 0) {
-                expire(key, time);
-            }
+            batch().lSet(key, value, time).execute();
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -648,10 +855,7 @@ public class RedisUtils {
      */
     public boolean lSetList(String key, List<Object> value, long time) {
         try {
-            redisTemplate.opsForList().rightPushAll(key, value);
-            if (time > 0) {
-                expire(key, time);
-            }
+            batch().lSetList(key, value, time).execute();
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -699,11 +903,11 @@ public class RedisUtils {
      * @param ids    id
      */
     public void delByKeys(String prefix, Set<Long> ids) {
-        Set<String> keys = new HashSet<>();
+        List<String> keys = new ArrayList<>(ids.size());
         for (Long id : ids) {
-            keys.addAll(redisTemplate.keys(new StringBuffer(prefix).append(id).toString()));
+            keys.add(new StringBuilder(prefix).append(id).toString());
         }
-        long count = redisTemplate.delete(keys);
+        long count = delByPatterns(keys, DEFAULT_DELETE_BATCH_SIZE);
         // 此处提示可自行删除
         log.debug("--------------------------------------------");
         log.debug("成功删除缓存：" + keys.toString());
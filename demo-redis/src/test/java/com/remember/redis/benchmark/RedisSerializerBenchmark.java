@@ -0,0 +1,116 @@
+package com.remember.redis.benchmark;
+
+import com.remember.redis.config.RedisSerializerProperties.Compression;
+import com.remember.redis.config.RedisSerializerProperties.Format;
+import com.remember.redis.entity.GeoHashData;
+import com.remember.redis.entity.User;
+import com.remember.redis.serializer.CompactRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * redis value 序列化对比：原来的 RedisSerializer.json() 与 smile、kryo 及 lz4 压缩
+ * <p>
+ * 直接运行 main 方法，序列化后的字节数在每组参数开始时打印 [payload]
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    @Param({"CURRENT_JSON", "SMILE", "KRYO", "SMILE_LZ4", "KRYO_LZ4"})
+    private String serializer;
+
+    @Param({"user", "geoHashData", "geoHashDataList"})
+    private String entity;
+
+    private RedisSerializer<Object> redisSerializer;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        redisSerializer = create(serializer);
+        value = sample(entity);
+        bytes = redisSerializer.serialize(value);
+        System.out.printf("%n[payload] %s %s %d bytes%n", serializer, entity, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(bytes);
+    }
+
+    private static RedisSerializer<Object> create(String name) {
+        switch (name) {
+            case "CURRENT_JSON":
+                return RedisSerializer.json();
+            case "SMILE":
+                return new CompactRedisSerializer(Format.SMILE, Compression.NONE, 1024);
+            case "KRYO":
+                return new CompactRedisSerializer(Format.KRYO, Compression.NONE, 1024);
+            case "SMILE_LZ4":
+                return new CompactRedisSerializer(Format.SMILE, Compression.LZ4, 1024);
+            case "KRYO_LZ4":
+                return new CompactRedisSerializer(Format.KRYO, Compression.LZ4, 1024);
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static Object sample(String name) {
+        switch (name) {
+            case "user":
+                User user = new User();
+                user.setName("remember5");
+                user.setAge(18);
+                user.setAddress("浙江省杭州市西湖区文三路 100 号");
+                return user;
+            case "geoHashData":
+                return geoHashData(0);
+            case "geoHashDataList":
+                List<GeoHashData> list = new ArrayList<>(100);
+                for (int i = 0; i < 100; i++) {
+                    list.add(geoHashData(i));
+                }
+                return list;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static GeoHashData geoHashData(int i) {
+        return GeoHashData.builder()
+                .keyWord("home")
+                .longitude(new BigDecimal("120.1551").add(BigDecimal.valueOf(i, 4)))
+                .latitude(new BigDecimal("30.2741").add(BigDecimal.valueOf(i, 4)))
+                .member("poi-" + i)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RedisSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
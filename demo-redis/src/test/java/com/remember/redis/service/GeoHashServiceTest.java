@@ -2,8 +2,13 @@ package com.remember.redis.service;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.redis.connection.RedisGeoCommands;
 
 import javax.annotation.Resource;
+import java.io.StringReader;
 
 
 @SpringBootTest
@@ -35,4 +40,23 @@ class GeoHashServiceTest {
     void getGeoRadius() {
         geoHashService.getGeoRadius();
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void importCsv() {
+        String csv = "# 经度,纬度,名称\n"
+                + "121.686009,31.200382,金宇\n"
+                + "121.271036,31.339226,永胜公寓\n"
+                + "121.437856,31.222863,江苏路500\n"
+                + "121.947222,30.903604,滴水湖\n";
+        long count = geoHashService.importCsv(new StringReader(csv));
+        System.err.println(count);
+    }
+
+
+    @Test
+    void shardedRadius() {
+        GeoResults<RedisGeoCommands.GeoLocation<Object>> radius = geoHashService.radius(121.497064, 31.242597, new Distance(30, Metrics.KILOMETERS), 10);
+        System.err.println(radius);
+    }
+}
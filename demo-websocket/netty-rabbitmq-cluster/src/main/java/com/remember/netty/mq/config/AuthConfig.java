@@ -0,0 +1,47 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.mq.config;
+
+import com.remember.netty.mq.websocket.auth.TokenVerifier;
+import com.remember.netty.mq.websocket.auth.VerifiedToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 握手鉴权配置
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Configuration
+public class AuthConfig {
+
+    /**
+     * 默认token校验：token即userId，不做任何校验，仅用于演示。
+     * 接入真实鉴权时声明自己的 {@link TokenVerifier} bean 即可替换
+     *
+     * @return token校验
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerifier tokenVerifier() {
+        return token -> CompletableFuture.completedFuture(new VerifiedToken(token, null));
+    }
+
+}
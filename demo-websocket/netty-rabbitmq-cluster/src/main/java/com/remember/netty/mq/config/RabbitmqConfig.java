@@ -15,7 +15,13 @@
  */
 package com.remember.netty.mq.config;
 
+import com.remember.netty.mq.constant.RabbitConstants;
+import com.remember.netty.mq.manager.RabbitmqManager;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
@@ -43,4 +49,38 @@ public class RabbitmqConfig {
     public RabbitAdmin rabbitAdmin(ConnectionFactory connectionFactory) {
         return new RabbitAdmin(connectionFactory);
     }
+
+    /**
+     * websocket消息exchange
+     *
+     * @return exchange
+     */
+    @Bean
+    public DirectExchange websocketExchange() {
+        return new DirectExchange(RabbitmqManager.EXCHANGE_NAME);
+    }
+
+    /**
+     * 本节点的reply queue，非持久、自动删除，节点下线后随消费者断开一起删除
+     * <p>
+     * 声明为bean，连接断开重连后由rabbitAdmin重新声明，否则队列随旧连接删除后不会再创建
+     *
+     * @return reply queue
+     */
+    @Bean
+    public Queue replyQueue() {
+        return new Queue(RabbitConstants.getReplyQueueName(RabbitConstants.ADDRESS_MD5), false, false, true);
+    }
+
+    /**
+     * reply queue绑定
+     *
+     * @param replyQueue        reply queue
+     * @param websocketExchange exchange
+     * @return binding
+     */
+    @Bean
+    public Binding replyBinding(Queue replyQueue, DirectExchange websocketExchange) {
+        return BindingBuilder.bind(replyQueue).to(websocketExchange).with(RabbitConstants.getReplyRoutingKeyName(RabbitConstants.ADDRESS_MD5));
+    }
 }
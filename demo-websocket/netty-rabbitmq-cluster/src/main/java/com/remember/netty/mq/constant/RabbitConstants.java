@@ -62,20 +62,20 @@ public class RabbitConstants {
     }
 
     /**
-     * 获取一次性消息的reply queue name
-     * @param messageId 消息id
+     * 获取节点的reply queue name，每个节点一个，回复按 correlationId 区分
+     * @param nodeId 节点id
      * @return queue name
      */
-    public static String getReplyQueueName(String messageId) {
-        return MessageFormat.format(PREFIX_REPLY, messageId);
+    public static String getReplyQueueName(String nodeId) {
+        return MessageFormat.format(PREFIX_REPLY, nodeId);
     }
     /**
-     * 获取一次性消息的routing key name
-     * @param messageId 消息id
+     * 获取节点的reply routing key name
+     * @param nodeId 节点id
      * @return routing key name
      */
-    public static String getReplyRoutingKeyName(String messageId) {
-        return MessageFormat.format(PREFIX_REPLY, messageId);
+    public static String getReplyRoutingKeyName(String nodeId) {
+        return MessageFormat.format(PREFIX_REPLY, nodeId);
     }
 
 }
@@ -19,7 +19,9 @@ import com.alibaba.fastjson.JSON;
 import com.rabbitmq.client.Channel;
 import com.remember.netty.mq.entity.RabbitmqMessage;
 import com.remember.netty.mq.manager.NettyChannelManager;
+import com.remember.netty.mq.manager.ReplyChannelManager;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
@@ -31,13 +33,19 @@ import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
  * @date 2023/12/19 17:29
  */
 @Slf4j
+@RequiredArgsConstructor
 public class DynamicQueueListener implements ChannelAwareMessageListener {
+
+    private final ReplyChannelManager replyChannelManager;
+
     @Override
     public void onMessage(Message message, Channel channel) throws Exception {
         final String msg = new String(message.getBody());
         log.info("DynamicQueueListener Received message from dynamic queue: " + msg);
         final RabbitmqMessage javaObject = JSON.toJavaObject(JSON.parseObject(msg), RabbitmqMessage.class);
         if (NettyChannelManager.getUserChannelMap().containsKey(javaObject.getUserId())) {
+            // 记录接收用户和发起节点，客户端回复时校验并路由回去
+            replyChannelManager.rememberReplyTo(javaObject.getMessageId(), javaObject.getUserId(), javaObject.getReplyTo());
             NettyChannelManager.getUserChannelMap().get(javaObject.getUserId()).writeAndFlush(new TextWebSocketFrame(javaObject.getMessage()));
             channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
         } else {
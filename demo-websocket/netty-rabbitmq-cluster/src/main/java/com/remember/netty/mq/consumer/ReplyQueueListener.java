@@ -0,0 +1,41 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.mq.consumer;
+
+import com.remember.netty.mq.manager.ReplyChannelManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 节点reply queue监听，按 correlationId 完成等待中的请求
+ *
+ * @author wangjiahao
+ * @date 2023/12/20 22:47
+ */
+@RequiredArgsConstructor
+public class ReplyQueueListener implements MessageListener {
+
+    private final ReplyChannelManager replyChannelManager;
+
+    @Override
+    public void onMessage(Message message) {
+        replyChannelManager.complete(message.getMessageProperties().getCorrelationId(),
+                new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -30,4 +30,9 @@ public class RabbitmqMessage {
     private String userId;
 
     private String message;
+
+    /**
+     * 等待回复的节点id，由 sendMessage 填充
+     */
+    private String replyTo;
 }
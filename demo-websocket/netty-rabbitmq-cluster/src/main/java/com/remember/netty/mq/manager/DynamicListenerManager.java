@@ -21,6 +21,7 @@ import org.springframework.amqp.core.MessageListener;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,12 +37,16 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DynamicListenerManager {
 
     private final RabbitAdmin rabbitAdmin;
+    private final ApplicationContext applicationContext;
 
     private ConcurrentHashMap<String, MessageListener> listenerMap = new ConcurrentHashMap<>();
 
     public SimpleMessageListenerContainer createListenerContainer(MessageListener listener, AcknowledgeMode acknowledgeMode, String... queueName) {
         SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
         container.setConnectionFactory(rabbitAdmin.getRabbitTemplate().getConnectionFactory());
+        // 消费者重启时队列已被删除(auto-delete队列随断开的连接删除)，由rabbitAdmin按bean重新声明
+        container.setAmqpAdmin(rabbitAdmin);
+        container.setApplicationContext(applicationContext);
 
         // 动态添加要监听的队列
         container.addQueueNames(queueName);
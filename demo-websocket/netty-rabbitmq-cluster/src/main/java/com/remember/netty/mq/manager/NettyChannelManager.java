@@ -18,6 +18,7 @@ package com.remember.netty.mq.manager;
 import io.netty.channel.Channel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import lombok.Getter;
 
@@ -34,6 +35,11 @@ public class NettyChannelManager {
     private NettyChannelManager() {
     }
 
+    /**
+     * channel中保存用户ID的属性
+     */
+    public static final AttributeKey<String> USER_ID = AttributeKey.valueOf("userId");
+
     /**
      * 定义一个channel组，管理所有的channel
      * GlobalEventExecutor.INSTANCE 是全局的事件执行器，是一个单例
@@ -51,4 +57,20 @@ public class NettyChannelManager {
     @Getter
     private static ConcurrentHashMap<String, Channel> userChannelMap = new ConcurrentHashMap<>();
 
+    /**
+     * 从channel组和用户map中移除channel
+     *
+     * @param channel channel
+     * @return channel对应的userId；未鉴权或该用户已在新的channel上连接时返回null
+     */
+    public static String removeChannel(Channel channel) {
+        channelGroup.remove(channel);
+        final String userId = channel.attr(USER_ID).get();
+        // 只有当前channel仍是该用户的channel时才移除，避免误删同一用户的新连接
+        if (userId != null && userChannelMap.remove(userId, channel)) {
+            return userId;
+        }
+        return null;
+    }
+
 }
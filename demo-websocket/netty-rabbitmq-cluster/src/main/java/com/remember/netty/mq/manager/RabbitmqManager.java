@@ -17,7 +17,7 @@ package com.remember.netty.mq.manager;
 
 import com.remember.netty.mq.constant.RabbitConstants;
 import com.remember.netty.mq.consumer.DynamicQueueListener;
-import com.remember.netty.mq.consumer.OnceQueueListener;
+import com.remember.netty.mq.consumer.ReplyQueueListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
@@ -40,6 +40,7 @@ public class RabbitmqManager {
 
     private final RabbitAdmin rabbitAdmin;
     private final DynamicListenerManager dynamicListenerManager;
+    private final ReplyChannelManager replyChannelManager;
 
 
     /**
@@ -66,21 +67,21 @@ public class RabbitmqManager {
         // 绑定queue
         rabbitAdmin.declareBinding(binding);
         // 监听queue
-        dynamicListenerManager.createListenerContainer(new DynamicQueueListener(), AcknowledgeMode.MANUAL, queueName);
+        dynamicListenerManager.createListenerContainer(new DynamicQueueListener(replyChannelManager), AcknowledgeMode.MANUAL, queueName);
     }
 
 
-    public void createOnceQueue(String messageId) {
-        final String queueName = RabbitConstants.getReplyQueueName(messageId);
-        final Queue queue = new Queue(queueName, true, false, false);
-        final Binding binding = BindingBuilder.bind(queue).to(DIRECT_EXCHANGE).with(RabbitConstants.getReplyRoutingKeyName(messageId));
-
-        // 创建queue
-        rabbitAdmin.declareQueue(queue);
-        // 绑定queue
-        rabbitAdmin.declareBinding(binding);
+    /**
+     * 监听本节点的reply queue，所有等待回复的请求共用，按 correlationId 区分
+     * <p>
+     * 队列及绑定以bean的形式声明(见 RabbitmqConfig)，连接恢复后由rabbitAdmin重新声明
+     */
+    public void initReplyQueue() {
+        // 声明exchange、reply queue及绑定
+        rabbitAdmin.initialize();
         // 监听queue
-        dynamicListenerManager.createListenerContainer(new OnceQueueListener(), AcknowledgeMode.MANUAL, queueName);
+        dynamicListenerManager.createListenerContainer(new ReplyQueueListener(replyChannelManager), AcknowledgeMode.AUTO,
+                RabbitConstants.getReplyQueueName(RabbitConstants.ADDRESS_MD5));
     }
 
 }
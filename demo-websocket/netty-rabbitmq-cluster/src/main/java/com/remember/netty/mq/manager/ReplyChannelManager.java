@@ -0,0 +1,170 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.mq.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remember.netty.mq.constant.RabbitConstants;
+import com.remember.netty.mq.metrics.NettyMetrics;
+import com.remember.netty.mq.properties.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 回复通道管理器
+ * <p>
+ * 每个节点只有一个reply queue，请求与回复通过 correlationId(即messageId) 对应：
+ * 发起节点在内存中登记等待中的请求，回复到达或超时后移除；
+ * 用户所在节点记录 messageId -> 发起节点，客户端回复时据此路由到发起节点的reply queue
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Component
+public class ReplyChannelManager {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final Duration timeout;
+
+    /**
+     * 发起节点：等待中的请求 correlationId -> sink
+     */
+    private final ConcurrentHashMap<String, MonoSink<String>> pendingReplies = new ConcurrentHashMap<>();
+
+    /**
+     * 用户所在节点：messageId -> 接收用户及发起节点id，超时未回复自动过期
+     */
+    private final Cache<String, ReplyRoute> replyRoutes;
+
+    public ReplyChannelManager(RabbitTemplate rabbitTemplate, WebSocketProperties webSocketProperties) {
+        this.rabbitTemplate = rabbitTemplate;
+        WebSocketProperties.Reply reply = webSocketProperties.getReply();
+        this.timeout = reply.getTimeout();
+        this.replyRoutes = Caffeine.newBuilder()
+                .maximumSize(reply.getMaximumSize())
+                .expireAfterWrite(reply.getTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * 登记等待中的请求并发送消息，订阅时才会发送
+     *
+     * @param correlationId 关联id，不能为空
+     * @param send          发送消息
+     * @return 用户回复
+     */
+    public Mono<String> request(String correlationId, Runnable send) {
+        if (correlationId == null) {
+            return Mono.error(new IllegalArgumentException("messageId不能为空"));
+        }
+        return Mono.<String>create(sink -> {
+            if (pendingReplies.putIfAbsent(correlationId, sink) != null) {
+                sink.error(new IllegalStateException("重复的messageId: " + correlationId));
+                return;
+            }
+            sink.onDispose(() -> pendingReplies.remove(correlationId, sink));
+            send.run();
+        }).timeout(timeout, Mono.defer(() -> {
+            NettyMetrics.REPLY_TIMEOUTS.increment();
+            return Mono.error(new TimeoutException("等待用户回复超时"));
+        }));
+    }
+
+    /**
+     * 回复到达发起节点，完成等待中的请求
+     *
+     * @param correlationId 关联id
+     * @param body          回复内容
+     */
+    public void complete(String correlationId, String body) {
+        final MonoSink<String> sink = correlationId == null ? null : pendingReplies.remove(correlationId);
+        if (sink == null) {
+            // 已超时或重复回复
+            NettyMetrics.REPLY_ORPHANS.increment();
+            log.debug("no pending request for correlationId:{}", correlationId);
+            return;
+        }
+        sink.success(body);
+    }
+
+    /**
+     * 用户所在节点投递消息时记录发起节点及接收用户
+     *
+     * @param messageId 消息id
+     * @param userId    接收用户id
+     * @param replyTo   发起节点id
+     */
+    public void rememberReplyTo(String messageId, String userId, String replyTo) {
+        if (messageId != null && userId != null && replyTo != null) {
+            replyRoutes.put(messageId, new ReplyRoute(userId, replyTo));
+        }
+    }
+
+    /**
+     * 客户端回复，发送到发起节点的reply queue
+     * <p>
+     * 只接受投递时记录过的messageId，且回复的用户必须是消息的接收者，
+     * 不信任客户端携带的节点id，避免客户端完成其他用户的请求或向任意reply queue发消息
+     *
+     * @param messageId 消息id
+     * @param userId    回复的用户id
+     * @param body      回复内容
+     */
+    public void reply(String messageId, String userId, String body) {
+        if (messageId == null || userId == null) {
+            return;
+        }
+        final ReplyRoute route = replyRoutes.getIfPresent(messageId);
+        if (route == null || !route.userId.equals(userId)) {
+            // 未投递过、已超时或不是接收者的回复直接丢弃
+            log.debug("no reply route for messageId:{}, userId:{}", messageId, userId);
+            return;
+        }
+        replyRoutes.invalidate(messageId);
+        final String node = route.node;
+        rabbitTemplate.convertAndSend(RabbitmqManager.EXCHANGE_NAME,
+                RabbitConstants.getReplyRoutingKeyName(node),
+                body,
+                message -> {
+                    message.getMessageProperties().setCorrelationId(messageId);
+                    return message;
+                });
+    }
+
+    /**
+     * 回复路由
+     */
+    private static final class ReplyRoute {
+        private final String userId;
+        private final String node;
+
+        private ReplyRoute(String userId, String node) {
+            this.userId = userId;
+            this.node = node;
+        }
+    }
+
+}
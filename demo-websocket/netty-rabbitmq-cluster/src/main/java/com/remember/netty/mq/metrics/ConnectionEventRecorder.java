@@ -0,0 +1,114 @@
+package com.remember.netty.mq.metrics;
+
+import com.remember.netty.mq.properties.WebSocketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接生命周期事件记录
+ * 每个事件只累加计数器；调试日志按 sampleRate 采样输出，且只有开启debug级别时才会拼接日志
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Component
+public class ConnectionEventRecorder {
+
+    /**
+     * channel 激活时间
+     */
+    private static final AttributeKey<Long> ACTIVE_TIME = AttributeKey.valueOf("activeTime");
+
+    private static final Counter[] COUNTERS = new Counter[ConnectionEvent.values().length];
+
+    /**
+     * 从建立连接到鉴权完成的耗时
+     */
+    private static final Timer HANDSHAKE_TO_AUTH = Timer.builder("netty.connection.auth.latency")
+            .description("time from channel active to successful authentication")
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+
+    static {
+        for (ConnectionEvent event : ConnectionEvent.values()) {
+            COUNTERS[event.ordinal()] = Counter.builder("netty.connection.events")
+                    .tag("event", event.getTag())
+                    .description("websocket connection lifecycle events")
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
+    private final double sampleRate;
+
+    public ConnectionEventRecorder(WebSocketProperties webSocketProperties) {
+        this.sampleRate = webSocketProperties.getEventLog().getSampleRate();
+    }
+
+    /**
+     * 记录事件
+     *
+     * @param event   事件
+     * @param channel channel
+     */
+    public void record(ConnectionEvent event, Channel channel) {
+        record(event, channel, null);
+    }
+
+    /**
+     * 记录事件
+     *
+     * @param event   事件
+     * @param channel channel
+     * @param cause   异常，可为空
+     */
+    public void record(ConnectionEvent event, Channel channel, Throwable cause) {
+        COUNTERS[event.ordinal()].increment();
+        if (event == ConnectionEvent.ACTIVE) {
+            channel.attr(ACTIVE_TIME).set(System.nanoTime());
+        } else if (event == ConnectionEvent.AUTH_SUCCESS) {
+            final Long activeTime = channel.attr(ACTIVE_TIME).getAndSet(null);
+            if (activeTime != null) {
+                HANDSHAKE_TO_AUTH.record(System.nanoTime() - activeTime, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (log.isDebugEnabled() && sampled()) {
+            log.debug("[{}] channel: {}, remote: {}", event.getTag(), channel.id().asShortText(), channel.remoteAddress(), cause);
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * 连接生命周期事件
+     */
+    public enum ConnectionEvent {
+        REGISTERED("registered"),
+        ACTIVE("active"),
+        AUTH_SUCCESS("auth.success"),
+        AUTH_FAILURE("auth.failure"),
+        INACTIVE("inactive"),
+        UNREGISTERED("unregistered"),
+        EXCEPTION("exception");
+
+        private final String tag;
+
+        ConnectionEvent(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.remember.netty.mq.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * netty 相关指标，注册到 micrometer 全局registry，通过 actuator 暴露
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class NettyMetrics {
+    /**
+     * constructor
+     */
+    private NettyMetrics() {
+    }
+
+    /**
+     * 当前处于不可写状态的channel数
+     */
+    public static final AtomicInteger UNWRITABLE_CHANNELS = Metrics.globalRegistry.gauge("netty.channel.unwritable", new AtomicInteger());
+
+    /**
+     * 背压队列溢出丢弃的帧数
+     */
+    public static final Counter DROPPED_FRAMES = Counter.builder("netty.outbound.dropped.frames")
+            .description("frames dropped by the per-channel outbound queue")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 持续不可写被强制断开的channel数
+     */
+    public static final Counter EVICTED_SLOW_CHANNELS = Counter.builder("netty.outbound.evicted.channels")
+            .description("channels closed after staying unwritable too long")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 超出限流被丢弃的帧数
+     */
+    public static final Counter RATE_LIMIT_DROPPED_FRAMES = Counter.builder("netty.ratelimit.dropped.frames")
+            .description("inbound frames dropped by the rate limiter")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 超出限流被拒绝的握手数
+     */
+    public static final Counter RATE_LIMIT_REJECTED_HANDSHAKES = Counter.builder("netty.ratelimit.rejected.handshakes")
+            .description("handshake requests rejected by the rate limiter")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 频繁超限被关闭的channel数
+     */
+    public static final Counter RATE_LIMIT_CLOSED_CHANNELS = Counter.builder("netty.ratelimit.closed.channels")
+            .description("channels closed for repeatedly exceeding the rate limit")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 心跳超时被清理的channel数
+     */
+    public static final Counter HEARTBEAT_REAPED_CHANNELS = Counter.builder("netty.heartbeat.reaped.channels")
+            .description("channels closed after missing too many heartbeats")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 服务端发送的ping帧数
+     */
+    public static final Counter HEARTBEAT_PINGS = Counter.builder("netty.heartbeat.pings")
+            .description("ping frames sent by the server")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 等待用户回复超时的请求数
+     */
+    public static final Counter REPLY_TIMEOUTS = Counter.builder("netty.reply.timeouts")
+            .description("sendMessage requests that timed out waiting for a reply")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 没有对应等待请求的回复数(已超时或重复回复)
+     */
+    public static final Counter REPLY_ORPHANS = Counter.builder("netty.reply.orphans")
+            .description("replies received without a pending request")
+            .register(Metrics.globalRegistry);
+
+}
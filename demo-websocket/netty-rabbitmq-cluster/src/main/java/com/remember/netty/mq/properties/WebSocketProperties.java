@@ -22,6 +22,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * websocket 配置
  *
@@ -40,6 +42,24 @@ public class WebSocketProperties {
     @NestedConfigurationProperty
     private Netty netty;
 
+    @NestedConfigurationProperty
+    private HeartBeat heartBeat = new HeartBeat();
+
+    @NestedConfigurationProperty
+    private EventLog eventLog = new EventLog();
+
+    @NestedConfigurationProperty
+    private Outbound outbound = new Outbound();
+
+    @NestedConfigurationProperty
+    private RateLimit rateLimit = new RateLimit();
+
+    @NestedConfigurationProperty
+    private Auth auth = new Auth();
+
+    @NestedConfigurationProperty
+    private Reply reply = new Reply();
+
 
     @Getter
     @Setter
@@ -51,7 +71,259 @@ public class WebSocketProperties {
 
         private Integer backlog;
 
+        /**
+         * 传输方式，native传输不可用时自动降级 io_uring -> epoll -> nio
+         */
+        private Transport transport = Transport.NIO;
+
+        /**
+         * boss线程数；开启 reusePort 时同时也是端口绑定次数
+         */
+        private Integer bossThreads = 1;
+
+        /**
+         * worker线程数，0 表示使用netty默认值(cpu核数 * 2)
+         */
+        private Integer workerThreads = 0;
+
+        /**
+         * 是否开启 SO_REUSEPORT，仅 epoll、io_uring 支持
+         */
+        private Boolean reusePort = false;
+
+        private Boolean tcpNoDelay = true;
+
+        /**
+         * SO_SNDBUF，为空时使用系统默认值
+         */
+        private Integer sndBuf;
+
+        /**
+         * SO_RCVBUF，为空时使用系统默认值
+         */
+        private Integer rcvBuf;
+
+        @NestedConfigurationProperty
+        private Allocator allocator = new Allocator();
+
+    }
+
+    /**
+     * ByteBuf 分配器配置，为空的项使用netty默认值
+     */
+    @Getter
+    @Setter
+    public static class Allocator {
+
+        private Boolean pooled = true;
+
+        private Boolean preferDirect = true;
+
+        private Integer heapArenas;
+
+        private Integer directArenas;
+
+        private Integer maxOrder;
+
+    }
+
+    /**
+     * 传输方式
+     */
+    public enum Transport {
+        NIO,
+        EPOLL,
+        IO_URING
+    }
+
+    /**
+     * 心跳配置
+     */
+    @Getter
+    @Setter
+    public static class HeartBeat {
+
+        /**
+         * 读空闲时间，每次读空闲记一次丢失并发送ping探测
+         */
+        private Duration readerIdle = Duration.ofSeconds(10);
+
+        /**
+         * 写空闲时间，写空闲时服务端主动发送ping保活
+         */
+        private Duration writerIdle = Duration.ofSeconds(10);
+
+        /**
+         * 连续读空闲次数达到该值则断开并清理连接
+         */
+        private Integer maxMissed = 3;
+
+    }
+
+    /**
+     * 连接事件日志配置
+     */
+    @Getter
+    @Setter
+    public static class EventLog {
+
+        /**
+         * 连接生命周期debug日志的采样率，0 ~ 1
+         */
+        private Double sampleRate = 0.01;
+
+    }
+
+    /**
+     * 出站写缓冲配置
+     */
+    @Getter
+    @Setter
+    public static class Outbound {
+
+        /**
+         * 写缓冲低水位，回落到该值以下channel恢复可写
+         */
+        private Integer lowWaterMark = 32 * 1024;
+
+        /**
+         * 写缓冲高水位，超过该值channel变为不可写
+         */
+        private Integer highWaterMark = 64 * 1024;
+
+        /**
+         * 不可写期间每个channel最多暂存的帧数，为0时不暂存，不可写期间直接丢弃新帧
+         */
+        private Integer queueSize = 256;
+
+        /**
+         * 暂存队列满时的处理方式
+         */
+        private OverflowMode overflowMode = OverflowMode.DROP_OLDEST;
+
+        /**
+         * 持续不可写超过该时长则强制断开
+         */
+        private Duration unwritableTimeout = Duration.ofSeconds(30);
+
+    }
+
+    /**
+     * 限流配置，rate 为每秒令牌数，burst 为桶容量
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+
+        private Boolean enabled = true;
+
+        /**
+         * 单个channel的帧限流
+         */
+        private Integer channelRate = 20;
+
+        private Integer channelBurst = 40;
+
+        /**
+         * 同一远程IP所有channel共享的帧限流
+         */
+        private Integer ipRate = 200;
+
+        private Integer ipBurst = 400;
+
+        /**
+         * 同一userId所有channel共享的帧限流
+         */
+        private Integer userRate = 50;
+
+        private Integer userBurst = 100;
+
+        /**
+         * 同一远程IP的握手请求限流
+         */
+        private Integer handshakeRate = 5;
+
+        private Integer handshakeBurst = 10;
+
+        /**
+         * IP、userId 共享令牌桶的分段数
+         */
+        private Integer stripes = 4096;
+
+        /**
+         * offenderWindow 内超限 offenderThreshold 次则关闭连接
+         */
+        private Integer offenderThreshold = 100;
+
+        private Duration offenderWindow = Duration.ofSeconds(10);
+
+    }
+
+    /**
+     * 暂存队列溢出处理方式
+     */
+    public enum OverflowMode {
+        /**
+         * 丢弃最早的一帧
+         */
+        DROP_OLDEST,
+        /**
+         * 丢弃全部暂存帧，只保留最新的一帧
+         */
+        COALESCE
     }
 
+    /**
+     * 握手鉴权配置
+     */
+    @Getter
+    @Setter
+    public static class Auth {
+
+        /**
+         * 鉴权线程数，token校验(访问redis、解析jwt等)在该线程池中执行，不占用netty的io线程
+         */
+        private Integer threads = 8;
+
+        /**
+         * 鉴权线程池队列长度，队列满时直接拒绝握手
+         */
+        private Integer queueSize = 10000;
+
+        /**
+         * 握手最长等待鉴权结果的时间，超时直接关闭连接
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * 已校验token的本地缓存最大条数
+         */
+        private Long cacheMaximumSize = 100000L;
+
+        /**
+         * 已校验token的最长缓存时间，token自身过期时间更短时以token为准
+         */
+        private Duration cacheTtl = Duration.ofMinutes(5);
+
+    }
+
+    /**
+     * sendMessage 等待用户回复的配置
+     */
+    @Getter
+    @Setter
+    public static class Reply {
+
+        /**
+         * 等待用户回复的超时时间，超时后请求失败并移除等待中的请求
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * 用户所在节点记录 messageId -> 发起节点 的最大条数
+         */
+        private Long maximumSize = 100000L;
+
+    }
 
 }
@@ -41,6 +41,7 @@ public class Runner implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         rabbitmqManager.initExchange();
+        rabbitmqManager.initReplyQueue();
         clearRedisConnection();
     }
 
@@ -15,11 +15,14 @@
  */
 package com.remember.netty.mq.service.impl;
 
+import cn.hutool.core.text.CharSequenceUtil;
+import cn.hutool.core.util.IdUtil;
 import com.alibaba.fastjson.JSON;
 import com.remember.netty.mq.constant.RabbitConstants;
 import com.remember.netty.mq.entity.RabbitmqMessage;
 import com.remember.netty.mq.manager.NettyChannelManager;
 import com.remember.netty.mq.manager.RabbitmqManager;
+import com.remember.netty.mq.manager.ReplyChannelManager;
 import com.remember.netty.mq.service.MessageService;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -27,7 +30,6 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -41,8 +43,7 @@ import reactor.core.publisher.Mono;
 public class MessageServiceImpl implements MessageService {
 
     public final RabbitTemplate rabbitTemplate;
-    private final RabbitmqManager rabbitmqManager;
-    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final ReplyChannelManager replyChannelManager;
 
     @Override
     public Mono<String> sendLocalMessage(RabbitmqMessage rabbitmqMessage) {
@@ -69,22 +70,18 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public Mono<String> sendMessage(RabbitmqMessage rabbitmqMessage) {
-        // 创建一次性消费者
+        // 未指定messageId时生成一个，回复按messageId对应等待中的请求
+        if (CharSequenceUtil.isEmpty(rabbitmqMessage.getMessageId())) {
+            rabbitmqMessage.setMessageId(IdUtil.fastSimpleUUID());
+        }
         final String messageId = rabbitmqMessage.getMessageId();
-//        rabbitmqManager.createOnceQueue(messageId);
+        // 回复发送到本节点的 reply queue，按 messageId 对应等待中的请求
+        rabbitmqMessage.setReplyTo(RabbitConstants.ADDRESS_MD5);
 
         // 发送消息到给用户mq
-        rabbitTemplate.convertAndSend(RabbitmqManager.EXCHANGE_NAME,
+        return replyChannelManager.request(messageId, () -> rabbitTemplate.convertAndSend(RabbitmqManager.EXCHANGE_NAME,
                 RabbitConstants.getInstanceRoutingKeyName(rabbitmqMessage.getUserId()),
-                JSON.toJSONString(rabbitmqMessage));
-
-        return reactiveRedisTemplate
-                // 监听Redis通道
-                .listenToChannel(messageId)
-                // 获取第一条符合条件的消息
-                .next()
-                // 从Redis中获取对应的值
-                .flatMap(message -> Mono.just(message.getMessage().toString()));
+                JSON.toJSONString(rabbitmqMessage)));
     }
 
     @Override
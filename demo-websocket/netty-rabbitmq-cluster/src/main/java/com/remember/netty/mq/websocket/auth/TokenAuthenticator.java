@@ -0,0 +1,123 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.mq.websocket.auth;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.remember.netty.mq.properties.WebSocketProperties;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * 握手鉴权，token校验在独立线程池中执行，结果以future返回，不阻塞netty的io线程
+ * <p>
+ * 已校验的token缓存在本地，过期时间取 cacheTtl 与token剩余有效期中较小的一个。
+ * 同一token并发握手(断线重连风暴)只会触发一次校验，校验失败的结果不缓存
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Component
+public class TokenAuthenticator implements DisposableBean {
+
+    private final TokenVerifier tokenVerifier;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AsyncCache<String, VerifiedToken> cache;
+
+    public TokenAuthenticator(TokenVerifier tokenVerifier, WebSocketProperties webSocketProperties) {
+        this.tokenVerifier = tokenVerifier;
+        WebSocketProperties.Auth auth = webSocketProperties.getAuth();
+        this.executor = new ThreadPoolExecutor(auth.getThreads(), auth.getThreads(), 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(auth.getQueueSize()), new DefaultThreadFactory("ws-auth"),
+                new ThreadPoolExecutor.AbortPolicy());
+        final long maxTtl = auth.getCacheTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(auth.getCacheMaximumSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        if (value.getExpireAt() == null) {
+                            return maxTtl;
+                        }
+                        long remain = TimeUnit.MILLISECONDS.toNanos(value.getExpireAt() - System.currentTimeMillis());
+                        return Math.max(0L, Math.min(maxTtl, remain));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync();
+    }
+
+    /**
+     * 校验token，命中本地缓存时返回已完成的future
+     *
+     * @param token 握手携带的token
+     * @return 校验结果，失败时结果为null或异常结束
+     */
+    public CompletableFuture<VerifiedToken> authenticate(String token) {
+        try {
+            return cache.get(token, (key, cacheExecutor) -> CompletableFuture
+                    .supplyAsync(() -> tokenVerifier.verify(key), executor)
+                    .thenCompose(Function.identity()));
+        } catch (RejectedExecutionException e) {
+            // 鉴权线程池已满，直接拒绝本次握手
+            CompletableFuture<VerifiedToken> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * 使token缓存失效，用户登出或token被吊销时调用
+     *
+     * @param token token
+     */
+    public void invalidate(String token) {
+        cache.synchronous().invalidate(token);
+    }
+
+    /**
+     * 鉴权线程池，握手成功后的redis登记等阻塞操作也放在这里执行
+     *
+     * @return 鉴权线程池
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+}
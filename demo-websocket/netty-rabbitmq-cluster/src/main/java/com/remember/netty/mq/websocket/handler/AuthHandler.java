@@ -19,21 +19,33 @@ import cn.hutool.core.text.CharSequenceUtil;
 import com.remember.netty.mq.constant.RabbitConstants;
 import com.remember.netty.mq.manager.NettyChannelManager;
 import com.remember.netty.mq.manager.RabbitmqManager;
+import com.remember.netty.mq.metrics.ConnectionEventRecorder;
+import com.remember.netty.mq.metrics.ConnectionEventRecorder.ConnectionEvent;
+import com.remember.netty.mq.properties.WebSocketProperties;
+import com.remember.netty.mq.websocket.auth.TokenAuthenticator;
+import com.remember.netty.mq.websocket.auth.VerifiedToken;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 鉴权handler
@@ -49,6 +61,9 @@ public class AuthHandler extends ChannelInboundHandlerAdapter {
     private static final String AUTHORIZATION = "Authorization";
     private final RedisTemplate<String, Object> redisTemplate;
     private final RabbitmqManager rabbitmqManager;
+    private final ConnectionEventRecorder connectionEventRecorder;
+    private final TokenAuthenticator tokenAuthenticator;
+    private final WebSocketProperties webSocketProperties;
 
     /**
      * 一旦连接，第一个被执行
@@ -58,106 +73,154 @@ public class AuthHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
-        log.info("[handlerAdded] 逻辑处理器被添加：handlerAdded() {}", ctx.channel().id().asLongText());
         NettyChannelManager.getChannelGroup().add(ctx.channel());
     }
 
 
     /**
-     * 注册
+     * 读取消息
+     * <p>
+     * token校验在鉴权线程池中异步执行，期间暂停读取并挂起握手请求，校验完成后回到channel所在的io线程继续握手
      *
      * @param ctx 上下文
-     * @throws Exception 异常
+     * @param msg 消息
      */
     @Override
-    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
-        log.info("[channelRegistered] channel 绑定到线程(NioEventLoop)：channelRegistered()");
-        super.channelRegistered(ctx);
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof FullHttpRequest)) {
+            ReferenceCountUtil.release(msg);
+            ctx.channel().close();
+            return;
+        }
+        final FullHttpRequest httpRequest = (FullHttpRequest) msg;
+        final String token = getToken(httpRequest);
+        if (CharSequenceUtil.isEmpty(token)) {
+            reject(ctx, httpRequest);
+            return;
+        }
+
+        final CompletableFuture<VerifiedToken> future = tokenAuthenticator.authenticate(token);
+        if (future.isDone()) {
+            // 命中本地缓存，直接在当前io线程继续握手
+            future.whenComplete((verified, cause) -> complete(ctx, httpRequest, verified, cause));
+            return;
+        }
+
+        // 鉴权完成前不再读取数据
+        ctx.channel().config().setAutoRead(false);
+        // 超时和鉴权结果只处理先到的一个
+        final AtomicBoolean handled = new AtomicBoolean();
+        final ScheduledFuture<?> timeout = ctx.executor().schedule(() -> {
+            if (handled.compareAndSet(false, true)) {
+                reject(ctx, httpRequest);
+            }
+        }, webSocketProperties.getAuth().getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        future.whenComplete((verified, cause) -> ctx.executor().execute(() -> {
+            timeout.cancel(false);
+            if (handled.compareAndSet(false, true)) {
+                complete(ctx, httpRequest, verified, cause);
+            }
+        }));
     }
 
     /**
-     * 当客户端主动链接服务端的链接后，这个通道就是活跃的了。也就是客户端与服务端建立了通信通道并且可以传输数据
+     * 处理鉴权结果，在channel所在的io线程执行
      *
-     * @param ctx 上下文
-     * @throws Exception 异常
+     * @param ctx         上下文
+     * @param httpRequest 握手请求
+     * @param verified    校验结果
+     * @param cause       校验异常
      */
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        log.info("[channelActive] channel 准备就绪：channelActive()");
-        SocketChannel channel = (SocketChannel) ctx.channel();
-        log.info("链接报告开始");
-        log.info("链接报告信息：本客户端链接到服务端。channelId：{}", channel.id());
-        log.info("链接报告IP: {}", channel.localAddress().getHostString());
-        log.info("链接报告Port: {}", channel.localAddress().getPort());
-        log.info("链接报告完毕");
-        String str = "通知服务端链接建立成功" + " " + new Date() + " " + channel.localAddress().getHostString() + "\r\n";
-        ctx.writeAndFlush(str);
+    private void complete(ChannelHandlerContext ctx, FullHttpRequest httpRequest, VerifiedToken verified, Throwable cause) {
+        if (!ctx.channel().isActive()) {
+            ReferenceCountUtil.release(httpRequest);
+            return;
+        }
+        if (cause != null || verified == null || CharSequenceUtil.isEmpty(verified.getUserId())) {
+            reject(ctx, httpRequest);
+            return;
+        }
+        accept(ctx, httpRequest, verified.getUserId());
     }
 
-
     /**
-     * 读取消息
+     * 鉴权成功，继续握手
      *
-     * @param ctx 上下文
-     * @param msg 消息
+     * @param ctx         上下文
+     * @param httpRequest 握手请求
+     * @param userId      用户id
      */
-    @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        log.info("[channelRead] channel 有数据可读：channelRead()");
-        if (msg instanceof FullHttpRequest) {
-            FullHttpRequest httpRequest = (FullHttpRequest) msg;
-            // 根据请求头的 AUTHORIZATION 进行鉴权操作
-            final String uri = httpRequest.uri();
-            final Map<String, String> params = getParams(uri);
-            final String userId = params.get("userId");
-            if (CharSequenceUtil.isEmpty(userId)) {
-                ctx.channel().writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.UNAUTHORIZED));
-                ctx.channel().close();
-                return;
-            }
-
-            // 重定向uri，否则会导致连接阻塞异常
-            if (uri.contains("?")) {
-                String newUri = uri.substring(0, uri.indexOf("?"));
-                httpRequest.setUri(newUri);
-            }
-
-            // 鉴权成功，添加channel用户组
-            NettyChannelManager.getChannelGroup().add(ctx.channel());
-
-            // 将用户ID作为自定义属性加入到channel中，方便随时channel中获取用户ID
-            AttributeKey<String> key = AttributeKey.valueOf("userId");
-            ctx.channel().attr(key).setIfAbsent(userId);
-            NettyChannelManager.getUserChannelMap().put(userId, ctx.channel());
+    private void accept(ChannelHandlerContext ctx, FullHttpRequest httpRequest, String userId) {
+        // 重定向uri，否则会导致连接阻塞异常
+        final String uri = httpRequest.uri();
+        if (uri.contains("?")) {
+            String newUri = uri.substring(0, uri.indexOf("?"));
+            httpRequest.setUri(newUri);
+        }
 
-            // Save redis.
-            Objects.requireNonNull(redisTemplate).opsForSet().add(RabbitConstants.WS_CLIENT + RabbitConstants.ADDRESS_MD5, userId);
-            // 创建消费者监听器
-            rabbitmqManager.createQueue(userId);
+        // 鉴权成功，添加channel用户组
+        final Channel channel = ctx.channel();
+        NettyChannelManager.getChannelGroup().add(channel);
 
+        // 将用户ID作为自定义属性加入到channel中，方便随时channel中获取用户ID
+        AttributeKey<String> key = AttributeKey.valueOf("userId");
+        channel.attr(key).setIfAbsent(userId);
+        NettyChannelManager.getUserChannelMap().put(userId, channel);
+        connectionEventRecorder.record(ConnectionEvent.AUTH_SUCCESS, channel);
+        // 鉴权完成删除这个handler
+        ctx.pipeline().remove(this);
+        // 对事件进行传播，知道完成WebSocket连接。
+        ctx.fireChannelRead(httpRequest);
+        channel.config().setAutoRead(true);
 
-            // 鉴权完成删除这个handler
-            ctx.pipeline().remove(this);
-            // 对事件进行传播，知道完成WebSocket连接。
-            ctx.fireChannelRead(msg);
-        } else {
-            ctx.channel().close();
+        // Save redis. 创建消费者监听器，访问redis、rabbitmq不放在io线程
+        try {
+            tokenAuthenticator.executor().execute(() -> {
+                if (channel.isActive()) {
+                    Objects.requireNonNull(redisTemplate).opsForSet().add(RabbitConstants.WS_CLIENT + RabbitConstants.ADDRESS_MD5, userId);
+                    rabbitmqManager.createQueue(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 鉴权线程池已满，无法创建监听器，断开让客户端重连
+            log.warn("create queue rejected, userId:{}", userId);
+            channel.close();
         }
     }
 
+    /**
+     * 鉴权失败，返回401并关闭连接
+     *
+     * @param ctx         上下文
+     * @param httpRequest 握手请求
+     */
+    private void reject(ChannelHandlerContext ctx, FullHttpRequest httpRequest) {
+        ReferenceCountUtil.release(httpRequest);
+        connectionEventRecorder.record(ConnectionEvent.AUTH_FAILURE, ctx.channel());
+        ctx.channel().writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.UNAUTHORIZED))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
 
     /**
-     * 消息读取完成
+     * 获取握手token，依次取请求头 Authorization、参数 token，兼容旧客户端的参数 userId
      *
-     * @param ctx 上下文
-     * @throws Exception 异常
+     * @param httpRequest 握手请求
+     * @return token
      */
-    @Override
-    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-        log.info("[channelReadComplete] channel 某次数据读完：channelReadComplete()");
-        super.channelReadComplete(ctx);
+    private static String getToken(FullHttpRequest httpRequest) {
+        String token = httpRequest.headers().get(AUTHORIZATION);
+        if (CharSequenceUtil.isNotEmpty(token)) {
+            return token;
+        }
+        final Map<String, String> params = getParams(httpRequest.uri());
+        token = params.get("token");
+        if (CharSequenceUtil.isNotEmpty(token)) {
+            return token;
+        }
+        return params.get("userId");
     }
 
+
     /**
      * 当客户端主动断开服务端的链接后，这个通道就是不活跃的。也就是说客户端与服务端的关闭了通信通道并且不可以传输数据
      *
@@ -166,8 +229,6 @@ public class AuthHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        log.info("[channelInactive] channel 被关闭：channelInactive()");
-        log.info("断开链接 {}", ctx.channel().localAddress().toString());
         removeRedisUserId(ctx);
     }
 
@@ -179,7 +240,6 @@ public class AuthHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
-        log.info("[channelUnregistered] channel 取消线程(NioEventLoop) 的绑定: channelUnregistered()");
         removeRedisUserId(ctx);
     }
 
@@ -192,8 +252,8 @@ public class AuthHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-        log.info("[exceptionCaught] 异常：{}", cause.getMessage());
-        cause.printStackTrace();
+        // 鉴权完成后本handler已移除，之后的异常由 ClientMsgHandler 记录
+        connectionEventRecorder.record(ConnectionEvent.EXCEPTION, ctx.channel(), cause);
         removeRedisUserId(ctx);
     }
 
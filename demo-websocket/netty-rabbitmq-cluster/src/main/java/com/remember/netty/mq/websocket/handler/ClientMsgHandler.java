@@ -19,15 +19,15 @@ import com.alibaba.fastjson.JSONObject;
 import com.remember.netty.mq.constant.RabbitConstants;
 import com.remember.netty.mq.entity.RabbitmqMessage;
 import com.remember.netty.mq.manager.NettyChannelManager;
-import com.remember.netty.mq.manager.RabbitmqManager;
+import com.remember.netty.mq.manager.ReplyChannelManager;
+import com.remember.netty.mq.metrics.ConnectionEventRecorder;
+import com.remember.netty.mq.metrics.ConnectionEventRecorder.ConnectionEvent;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
-import io.netty.util.AttributeKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -44,18 +44,16 @@ import org.springframework.stereotype.Component;
 public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
 
     private final RedisTemplate<String, Object> redisTemplate;
-    private final RabbitTemplate rabbitTemplate;
+    private final ReplyChannelManager replyChannelManager;
+    private final ConnectionEventRecorder connectionEventRecorder;
 
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) throws Exception {
         log.info("服务器收到消息：{}", msg.text());
         final RabbitmqMessage javaObject = JSONObject.toJavaObject(JSONObject.parseObject(msg.text()), RabbitmqMessage.class);
-        // 将消息发送到 MQ
-
-        rabbitTemplate.convertAndSend(RabbitmqManager.EXCHANGE_NAME,
-                RabbitConstants.getReplyRoutingKeyName(javaObject.getMessageId()),
-                msg.text());
+        // 将回复发送到发起节点的 reply queue，发起节点以投递时记录的为准
+        replyChannelManager.reply(javaObject.getMessageId(), ctx.channel().attr(NettyChannelManager.USER_ID).get(), msg.text());
         // 回复消息
 //        ctx.channel().writeAndFlush(new TextWebSocketFrame("服务器连接成功！"));
     }
@@ -70,6 +68,7 @@ public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketF
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.EXCEPTION, ctx.channel(), cause);
         log.info("异常：{}", cause.getMessage());
         removeUserId(ctx);
         ctx.close();
@@ -77,12 +76,8 @@ public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketF
 
 
     private void removeUserId(ChannelHandlerContext ctx) {
-        NettyChannelManager.getChannelGroup().remove(ctx.channel());
-
-        AttributeKey<String> key = AttributeKey.valueOf("userId");
-        String userId = ctx.channel().attr(key).get();
-        NettyChannelManager.getUserChannelMap().remove(userId);
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(RabbitConstants.WS_CLIENT + RabbitConstants.ADDRESS_MD5))) {
+        String userId = NettyChannelManager.removeChannel(ctx.channel());
+        if (userId != null) {
             redisTemplate.opsForSet().remove(RabbitConstants.WS_CLIENT + RabbitConstants.ADDRESS_MD5, userId);
         }
         ctx.channel().close();
@@ -0,0 +1,48 @@
+package com.remember.netty.mq.websocket.handler;
+
+import com.remember.netty.mq.metrics.ConnectionEventRecorder;
+import com.remember.netty.mq.metrics.ConnectionEventRecorder.ConnectionEvent;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接生命周期事件handler，位于pipeline最前面且不会被移除，
+ * 鉴权前后的连接都会经过这里记录 注册/激活/断开/注销 事件
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Component
+@ChannelHandler.Sharable
+@RequiredArgsConstructor
+public class ConnectionEventHandler extends ChannelInboundHandlerAdapter {
+
+    private final ConnectionEventRecorder connectionEventRecorder;
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.REGISTERED, ctx.channel());
+        super.channelRegistered(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.ACTIVE, ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.INACTIVE, ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.UNREGISTERED, ctx.channel());
+        super.channelUnregistered(ctx);
+    }
+}
@@ -1,29 +1,25 @@
-/**
- * Copyright [2022] [remember5]
- * <p>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
 package com.remember.netty.mq.websocket.handler;
 
+import com.remember.netty.mq.constant.RabbitConstants;
+import com.remember.netty.mq.manager.NettyChannelManager;
+import com.remember.netty.mq.metrics.NettyMetrics;
+import com.remember.netty.mq.properties.WebSocketProperties;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
+import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 /**
  * 心跳检测handler
+ * 丢失次数保存在channel属性中，每个channel独立计数
  *
  * @author wangjiahao
  * @date 2022/12/13 17:27
@@ -32,26 +28,75 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @ChannelHandler.Sharable
+@RequiredArgsConstructor
 public class HeartBeatHandler extends ChannelInboundHandlerAdapter {
-    private int lossConnectCount = 0;
+
+    /**
+     * 连续读空闲次数
+     */
+    private static final AttributeKey<Integer> LOSS_CONNECT_COUNT = AttributeKey.valueOf("lossConnectCount");
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final WebSocketProperties webSocketProperties;
+
+    /**
+     * 有读事件(包括pong)说明客户端存活，清零丢失次数
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (ctx.channel().attr(LOSS_CONNECT_COUNT).get() != null) {
+            ctx.channel().attr(LOSS_CONNECT_COUNT).set(null);
+        }
+        super.channelRead(ctx, msg);
+    }
 
     /**
      * 用户事件
      * 自定义空闲状态检测(自定义心跳检测handler)
-     * 若连续2次无读事件，则关闭这个客户端channel
+     * 读空闲时发送ping探测，若连续 maxMissed 次无读事件，则清理并关闭这个客户端channel；
+     * 写空闲时主动发送ping保活
      */
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
             IdleStateEvent event = (IdleStateEvent) evt;
-//            if (event.state() == IdleState.READER_IDLE) {
-//                lossConnectCount++;
-//                if (lossConnectCount > 2) {
-//                    ctx.channel().close();
-//                }
-//            }
+            if (event.state() == IdleState.READER_IDLE) {
+                final Integer count = ctx.channel().attr(LOSS_CONNECT_COUNT).get();
+                final int lossConnectCount = count == null ? 1 : count + 1;
+                if (lossConnectCount >= webSocketProperties.getHeartBeat().getMaxMissed()) {
+                    reap(ctx);
+                    return;
+                }
+                ctx.channel().attr(LOSS_CONNECT_COUNT).set(lossConnectCount);
+                ping(ctx);
+            } else if (event.state() == IdleState.WRITER_IDLE) {
+                ping(ctx);
+            }
         } else {
             super.userEventTriggered(ctx, evt);
         }
     }
+
+    /**
+     * 发送ping，握手完成前channel上还没有websocket编码器，不发送
+     */
+    private void ping(ChannelHandlerContext ctx) {
+        if (ctx.pipeline().get(WebSocket08FrameEncoder.class) != null) {
+            NettyMetrics.HEARTBEAT_PINGS.increment();
+            ctx.channel().writeAndFlush(new PingWebSocketFrame());
+        }
+    }
+
+    /**
+     * 清理本地map和redis中的在线用户后关闭channel
+     */
+    private void reap(ChannelHandlerContext ctx) {
+        NettyMetrics.HEARTBEAT_REAPED_CHANNELS.increment();
+        final String userId = NettyChannelManager.removeChannel(ctx.channel());
+        if (userId != null) {
+            redisTemplate.opsForSet().remove(RabbitConstants.WS_CLIENT + RabbitConstants.ADDRESS_MD5, userId);
+        }
+        log.debug("channel {} 心跳超时，关闭连接，userId: {}", ctx.channel().id().asShortText(), userId);
+        ctx.channel().close();
+    }
 }
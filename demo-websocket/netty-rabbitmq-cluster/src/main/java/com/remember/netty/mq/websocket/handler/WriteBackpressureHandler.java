@@ -0,0 +1,167 @@
+package com.remember.netty.mq.websocket.handler;
+
+import com.remember.netty.mq.metrics.NettyMetrics;
+import com.remember.netty.mq.properties.WebSocketProperties;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写缓冲背压handler(每个channel一个实例)
+ * channel 超过高水位变为不可写后，数据帧进入有界队列，队列满时按 overflowMode 丢弃；
+ * 恢复可写后按顺序写出；持续不可写超过 unwritableTimeout 则强制断开慢客户端
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+public class WriteBackpressureHandler extends ChannelDuplexHandler {
+
+    private final WebSocketProperties.Outbound outbound;
+
+    /**
+     * 不可写期间暂存的数据帧，懒加载
+     */
+    private ArrayDeque<PendingWrite> pendingWrites;
+
+    private boolean unwritable;
+
+    private ScheduledFuture<?> evictFuture;
+
+    public WriteBackpressureHandler(WebSocketProperties.Outbound outbound) {
+        this.outbound = outbound;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        // 控制帧、握手响应等直接放行
+        if (!(msg instanceof TextWebSocketFrame) && !(msg instanceof BinaryWebSocketFrame)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        // 队列非空时也需要入队，保证消息顺序
+        if ((pendingWrites == null || pendingWrites.isEmpty()) && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        enqueue(msg, promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            markWritable();
+            drain(ctx);
+        } else {
+            markUnwritable(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        markWritable();
+        if (pendingWrites != null) {
+            dropAll();
+        }
+    }
+
+    private void enqueue(Object msg, ChannelPromise promise) {
+        final int queueSize = outbound.getQueueSize();
+        if (queueSize <= 0) {
+            // 不暂存，不可写期间直接丢弃新帧
+            new PendingWrite(msg, promise).drop();
+            return;
+        }
+        if (pendingWrites == null) {
+            pendingWrites = new ArrayDeque<>(Math.min(queueSize, 16));
+        }
+        if (pendingWrites.size() >= queueSize) {
+            if (outbound.getOverflowMode() == WebSocketProperties.OverflowMode.COALESCE) {
+                // 合并：只保留最新的一帧
+                dropAll();
+            } else {
+                final PendingWrite oldest = pendingWrites.poll();
+                if (oldest != null) {
+                    oldest.drop();
+                }
+            }
+        }
+        pendingWrites.add(new PendingWrite(msg, promise));
+    }
+
+    private void dropAll() {
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            pendingWrite.drop();
+        }
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        if (pendingWrites == null || pendingWrites.isEmpty()) {
+            return;
+        }
+        while (!pendingWrites.isEmpty() && ctx.channel().isWritable()) {
+            final PendingWrite pendingWrite = pendingWrites.poll();
+            ctx.write(pendingWrite.msg, pendingWrite.promise);
+        }
+        ctx.flush();
+    }
+
+    private void markUnwritable(ChannelHandlerContext ctx) {
+        if (unwritable) {
+            return;
+        }
+        unwritable = true;
+        NettyMetrics.UNWRITABLE_CHANNELS.incrementAndGet();
+        evictFuture = ctx.executor().schedule(() -> {
+            if (!ctx.channel().isWritable()) {
+                log.warn("channel {} 持续不可写超过 {}，强制断开", ctx.channel().id().asShortText(), outbound.getUnwritableTimeout());
+                NettyMetrics.EVICTED_SLOW_CHANNELS.increment();
+                ctx.channel().close();
+            }
+        }, outbound.getUnwritableTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void markWritable() {
+        if (!unwritable) {
+            return;
+        }
+        unwritable = false;
+        NettyMetrics.UNWRITABLE_CHANNELS.decrementAndGet();
+        if (evictFuture != null) {
+            evictFuture.cancel(false);
+            evictFuture = null;
+        }
+    }
+
+    /**
+     * 暂存的写操作
+     */
+    private static final class PendingWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+
+        private void drop() {
+            NettyMetrics.DROPPED_FRAMES.increment();
+            ReferenceCountUtil.release(msg);
+            // voidPromise 失败会触发 exceptionCaught，这里只通知普通promise
+            if (!promise.isVoid()) {
+                promise.tryFailure(new IllegalStateException("frame dropped by write backpressure"));
+            }
+        }
+    }
+}
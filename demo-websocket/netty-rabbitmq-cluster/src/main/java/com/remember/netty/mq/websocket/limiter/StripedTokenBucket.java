@@ -0,0 +1,91 @@
+package com.remember.netty.mq.websocket.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段令牌桶，多个EventLoop共享，按key的hash映射到固定数量的桶(不同key可能共用一个桶)
+ * 每个桶只保存一个理论到达时间(GCRA)，通过CAS更新，无锁且不产生对象分配
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class StripedTokenBucket {
+
+    /**
+     * 相邻桶间隔8个long(64字节)，避免伪共享
+     */
+    private static final int PADDING_SHIFT = 3;
+
+    private final AtomicLongArray tats;
+    private final int mask;
+    private final long interval;
+    private final long burstWindow;
+
+    /**
+     * @param stripes 桶数量，向上取整为2的幂
+     * @param rate    每秒令牌数
+     * @param burst   桶容量
+     */
+    public StripedTokenBucket(int stripes, int rate, int burst) {
+        final int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.mask = size - 1;
+        this.tats = new AtomicLongArray(size << PADDING_SHIFT);
+        for (int i = 0; i < size; i++) {
+            tats.set(i << PADDING_SHIFT, Long.MIN_VALUE);
+        }
+        this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(rate, 1);
+        this.burstWindow = interval * Math.max(burst, 1);
+    }
+
+    /**
+     * 计算key对应的桶下标，可在连接建立时计算一次后复用
+     *
+     * @param hash key的hash
+     * @return 桶下标
+     */
+    public int stripe(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * 是否还有令牌，不消耗令牌；并发时可能在随后的 tryAcquire 中失败
+     *
+     * @param stripe 桶下标
+     * @param now    当前时间 System.nanoTime()
+     * @return 是否有令牌
+     */
+    public boolean canAcquire(int stripe, long now) {
+        return Math.max(tats.get(stripe << PADDING_SHIFT), now) + interval - now <= burstWindow;
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param stripe 桶下标
+     * @param now    当前时间 System.nanoTime()
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(int stripe, long now) {
+        final int index = stripe << PADDING_SHIFT;
+        for (; ; ) {
+            final long tat = tats.get(index);
+            final long next = Math.max(tat, now) + interval;
+            if (next - now > burstWindow) {
+                return false;
+            }
+            if (tats.compareAndSet(index, tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一个已获取的令牌，用于其它桶拒绝后的回滚
+     *
+     * @param stripe 桶下标
+     */
+    public void release(int stripe) {
+        tats.addAndGet(stripe << PADDING_SHIFT, -interval);
+    }
+}
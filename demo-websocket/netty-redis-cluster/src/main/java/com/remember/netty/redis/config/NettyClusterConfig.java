@@ -26,6 +26,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
@@ -86,13 +87,13 @@ public class NettyClusterConfig {
         RedisMessageListenerContainer redisMessageListenerContainer = new RedisMessageListenerContainer();
         redisMessageListenerContainer.setConnectionFactory(redisConnectionFactory);
 
-        // 订阅频道(发送给指定用户)
-        redisMessageListenerContainer.addMessageListener(listenerAdapter1, new PatternTopic(NettyRedisConstants.PUSH_MESSAGE_TO_ONE));
+        // 订阅本节点频道(发送给指定用户)，其他节点的定向消息不会投递到本节点
+        redisMessageListenerContainer.addMessageListener(listenerAdapter1, new ChannelTopic(NettyRedisConstants.getNodeTopic(NettyRedisConstants.ADDRESS_MD5)));
         // 订阅频道(发送给所有用户)
         redisMessageListenerContainer.addMessageListener(listenerAdapter2, new PatternTopic(NettyRedisConstants.PUSH_MESSAGE_TO_ALL));
 
-        FastJsonRedisSerializer fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
-        redisMessageListenerContainer.setTopicSerializer(fastJsonRedisSerializer);
+        // topic 与 RedisTemplate 发布时保持一致，使用 String 序列化
+        redisMessageListenerContainer.setTopicSerializer(RedisSerializer.string());
         return redisMessageListenerContainer;
     }
 
@@ -103,12 +104,12 @@ public class NettyClusterConfig {
 
 
     /**
-     * 表示监听一个频道（发送给指定用户）
+     * 表示监听一个频道（本节点，发送给指定用户）
      * 给messageListenerAdapter 传入一个消息接受的处理器，利用反射的方法调用“MessageReceive ”
      */
     @Bean
     public MessageListenerAdapter listenerAdapter1(MessageReceive messageReceive) {
-        return new MessageListenerAdapter(messageReceive, "getMessageToOne");
+        return new MessageListenerAdapter(messageReceive, "getMessageToNode");
     }
 
     /**
@@ -18,11 +18,26 @@ package com.remember.netty.redis.config;
 import com.remember.netty.redis.properties.WebSocketProperties;
 import com.remember.netty.redis.websocket.WebSocketChannelInitializer;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -30,6 +45,9 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * netty服务配置
@@ -46,20 +64,15 @@ public class NettyServerConfig {
     private final WebSocketProperties webSocketProperties;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workGroup;
+    private final List<Channel> serverChannels = new ArrayList<>();
 
     /**
      * 初始化bean时
-     * 需要开启一个新的线程来执行netty server 服务器
+     * 同步绑定端口，绑定失败直接启动失败；绑定后的accept、读写都在netty的EventLoop中执行，不需要额外线程
      */
     @PostConstruct()
-    public void init() {
-        new Thread(() -> {
-            try {
-                start();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }).start();
+    public void init() throws InterruptedException {
+        start();
     }
 
     /**
@@ -67,6 +80,9 @@ public class NettyServerConfig {
      */
     @PreDestroy
     public void destroy() throws InterruptedException {
+        for (Channel serverChannel : serverChannels) {
+            serverChannel.close().sync();
+        }
         if (bossGroup != null) {
             bossGroup.shutdownGracefully().sync();
         }
@@ -80,23 +96,118 @@ public class NettyServerConfig {
      * 启动
      */
     private void start() throws InterruptedException {
-        bossGroup = new NioEventLoopGroup();
-        workGroup = new NioEventLoopGroup();
+        final WebSocketProperties.Netty netty = webSocketProperties.getNetty();
+        final WebSocketProperties.Transport transport = resolveTransport(netty.getTransport());
+        bossGroup = newEventLoopGroup(transport, netty.getBossThreads(), "netty-boss");
+        workGroup = newEventLoopGroup(transport, netty.getWorkerThreads(), "netty-worker");
         ServerBootstrap bootstrap = new ServerBootstrap();
         // bossGroup辅助客户端的tcp连接请求, workGroup负责与客户端之前的读写操作
         bootstrap.group(bossGroup, workGroup);
-        // 设置NIO类型的channel
-        bootstrap.channel(NioServerSocketChannel.class);
+        // 设置channel类型
+        bootstrap.channel(serverChannelClass(transport));
         // 指定服务端连接队列长度，也就是服务端处理线程全部繁忙，并且队列长度已达到1024个，后续请求将会拒绝
-        bootstrap.option(ChannelOption.SO_BACKLOG, webSocketProperties.getNetty().getBacklog());
+        bootstrap.option(ChannelOption.SO_BACKLOG, netty.getBacklog());
+        // 内存分配器
+        final ByteBufAllocator allocator = newAllocator(netty.getAllocator());
+        bootstrap.option(ChannelOption.ALLOCATOR, allocator);
+        bootstrap.childOption(ChannelOption.ALLOCATOR, allocator);
+        // 关闭Nagle算法，小包立即发送
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, netty.getTcpNoDelay());
+        // socket收发缓冲区，未配置时使用系统默认值；接收缓冲区需要在listen前设置到服务端socket上才能生效窗口扩大
+        if (netty.getSndBuf() != null) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, netty.getSndBuf());
+        }
+        if (netty.getRcvBuf() != null) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, netty.getRcvBuf());
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, netty.getRcvBuf());
+        }
+        // 写缓冲水位，超过高水位channel变为不可写，由 WriteBackpressureHandler 暂存或丢弃后续帧
+        WebSocketProperties.Outbound outbound = webSocketProperties.getOutbound();
+        bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                new WriteBufferWaterMark(outbound.getLowWaterMark(), outbound.getHighWaterMark()));
+        // SO_REUSEPORT：同一端口绑定多次，由内核把新连接分散到多个acceptor线程
+        int bindCount = 1;
+        if (Boolean.TRUE.equals(netty.getReusePort())) {
+            if (transport == WebSocketProperties.Transport.EPOLL) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+                bindCount = Math.max(1, netty.getBossThreads());
+            } else if (transport == WebSocketProperties.Transport.IO_URING) {
+                bootstrap.option(IOUringChannelOption.SO_REUSEPORT, true);
+                bindCount = Math.max(1, netty.getBossThreads());
+            } else {
+                log.warn("SO_REUSEPORT 需要 epoll 或 io_uring 传输，当前为 {}，已忽略", transport);
+            }
+        }
         // 设置监听端口
-        bootstrap.localAddress(new InetSocketAddress(webSocketProperties.getNetty().getPort()));
+        bootstrap.localAddress(new InetSocketAddress(netty.getPort()));
         // 连接到达时会创建一个通道
         bootstrap.childHandler(channelInitializer);
         // 配置完成，开始绑定server，通过调用sync同步方法阻塞直到绑定成功
-        ChannelFuture channelFuture = bootstrap.bind().sync();
-        log.info("Server started and listen on:{}", channelFuture.channel().localAddress());
-        // 对关闭通道进行监听
-        channelFuture.channel().closeFuture().sync();
+        for (int i = 0; i < bindCount; i++) {
+            ChannelFuture channelFuture = bootstrap.bind().sync();
+            serverChannels.add(channelFuture.channel());
+        }
+        log.info("Server started and listen on:{}, transport: {}, acceptors: {}", serverChannels.get(0).localAddress(), transport, bindCount);
+    }
+
+    /**
+     * 解析实际使用的传输方式，native传输不可用时自动降级
+     *
+     * @param transport 配置的传输方式
+     * @return 实际使用的传输方式
+     */
+    private WebSocketProperties.Transport resolveTransport(WebSocketProperties.Transport transport) {
+        if (transport == WebSocketProperties.Transport.IO_URING) {
+            if (IOUring.isAvailable()) {
+                return transport;
+            }
+            log.warn("io_uring 不可用，降级为 epoll: {}", IOUring.unavailabilityCause().getMessage());
+            transport = WebSocketProperties.Transport.EPOLL;
+        }
+        if (transport == WebSocketProperties.Transport.EPOLL) {
+            if (Epoll.isAvailable()) {
+                return transport;
+            }
+            log.warn("epoll 不可用，降级为 nio: {}", Epoll.unavailabilityCause().getMessage());
+        }
+        return WebSocketProperties.Transport.NIO;
+    }
+
+    private EventLoopGroup newEventLoopGroup(WebSocketProperties.Transport transport, int threads, String poolName) {
+        final ThreadFactory threadFactory = new DefaultThreadFactory(poolName);
+        switch (transport) {
+            case IO_URING:
+                return new IOUringEventLoopGroup(threads, threadFactory);
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            default:
+                return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
+    private Class<? extends ServerChannel> serverChannelClass(WebSocketProperties.Transport transport) {
+        switch (transport) {
+            case IO_URING:
+                return IOUringServerSocketChannel.class;
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    private ByteBufAllocator newAllocator(WebSocketProperties.Allocator config) {
+        if (!Boolean.TRUE.equals(config.getPooled())) {
+            return new UnpooledByteBufAllocator(config.getPreferDirect());
+        }
+        return new PooledByteBufAllocator(
+                config.getPreferDirect(),
+                config.getHeapArenas() == null ? PooledByteBufAllocator.defaultNumHeapArena() : config.getHeapArenas(),
+                config.getDirectArenas() == null ? PooledByteBufAllocator.defaultNumDirectArena() : config.getDirectArenas(),
+                PooledByteBufAllocator.defaultPageSize(),
+                config.getMaxOrder() == null ? PooledByteBufAllocator.defaultMaxOrder() : config.getMaxOrder(),
+                PooledByteBufAllocator.defaultSmallCacheSize(),
+                PooledByteBufAllocator.defaultNormalCacheSize(),
+                PooledByteBufAllocator.defaultUseCacheForAllThreads());
     }
 }
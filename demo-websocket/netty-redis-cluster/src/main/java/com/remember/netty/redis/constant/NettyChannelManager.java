@@ -15,13 +15,32 @@
  */
 package com.remember.netty.redis.constant;
 
+import com.remember.netty.redis.entity.NettyPushMessageBody;
+import com.remember.netty.redis.metrics.NettyMetrics;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import lombok.Getter;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author wangjiahao
@@ -34,6 +53,11 @@ public class NettyChannelManager {
     private NettyChannelManager() {
     }
 
+    /**
+     * channel中保存用户ID的属性
+     */
+    public static final AttributeKey<String> USER_ID = AttributeKey.valueOf("userId");
+
     /**
      * 定义一个channel组，管理所有的channel
      * GlobalEventExecutor.INSTANCE 是全局的事件执行器，是一个单例
@@ -51,4 +75,119 @@ public class NettyChannelManager {
     @Getter
     private static ConcurrentHashMap<String, Channel> userChannelMap = new ConcurrentHashMap<>();
 
+    /**
+     * 从channel组和用户map中移除channel
+     *
+     * @param channel channel
+     * @return channel对应的userId；未鉴权或该用户已在新的channel上连接时返回null
+     */
+    public static String removeChannel(Channel channel) {
+        channelGroup.remove(channel);
+        final String userId = channel.attr(USER_ID).get();
+        // 只有当前channel仍是该用户的channel时才移除，避免误删同一用户的新连接
+        if (userId != null && userChannelMap.remove(userId, channel)) {
+            return userId;
+        }
+        return null;
+    }
+
+    /**
+     * 批量推送给本节点用户
+     * 按channel所属的EventLoop分组，每个EventLoop只提交一次任务：先write全部帧，再逐个channel flush一次
+     *
+     * @param messages 需要推送的消息
+     * @return 本节点未找到channel的消息数
+     */
+    public static int writeToUsers(Collection<NettyPushMessageBody> messages) {
+        int missed = 0;
+        final Map<EventLoop, List<Map.Entry<Channel, String>>> loopMessages = new HashMap<>();
+        for (NettyPushMessageBody message : messages) {
+            final Channel channel = userChannelMap.get(message.getUserId());
+            if (channel == null) {
+                missed++;
+                continue;
+            }
+            loopMessages.computeIfAbsent(channel.eventLoop(), k -> new ArrayList<>())
+                    .add(new AbstractMap.SimpleImmutableEntry<>(channel, message.getMessage()));
+        }
+        for (Map.Entry<EventLoop, List<Map.Entry<Channel, String>>> entry : loopMessages.entrySet()) {
+            final List<Map.Entry<Channel, String>> writes = entry.getValue();
+            entry.getKey().execute(() -> {
+                final Set<Channel> written = new LinkedHashSet<>();
+                for (Map.Entry<Channel, String> write : writes) {
+                    final Channel channel = write.getKey();
+                    channel.write(new TextWebSocketFrame(write.getValue()), channel.voidPromise());
+                    written.add(channel);
+                }
+                for (Channel channel : written) {
+                    channel.flush();
+                }
+            });
+        }
+        return missed;
+    }
+
+    /**
+     * 广播给本节点所有channel
+     * 帧只编码一次到池化的ByteBuf，每个channel拿到的是共享内容的 retainedDuplicate，
+     * 按EventLoop分组，每个EventLoop只提交一次任务并逐个flush
+     *
+     * @param message 消息
+     */
+    public static void broadcast(String message) {
+        final Map<EventLoop, List<Channel>> loopChannels = new HashMap<>();
+        int total = 0;
+        for (Channel channel : channelGroup) {
+            if (channel.isActive()) {
+                loopChannels.computeIfAbsent(channel.eventLoop(), k -> new ArrayList<>()).add(channel);
+                total++;
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+
+        final TextWebSocketFrame frame = new TextWebSocketFrame(ByteBufUtil.writeUtf8(ByteBufAllocator.DEFAULT, message));
+        try {
+            final int bytes = frame.content().readableBytes();
+            final long start = System.nanoTime();
+            final AtomicInteger pending = new AtomicInteger(total);
+            final ChannelFutureListener drainListener = future -> {
+                if (future.isSuccess()) {
+                    NettyMetrics.BROADCAST_BYTES.increment(bytes);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    NettyMetrics.BROADCAST_DRAIN.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+            for (Map.Entry<EventLoop, List<Channel>> entry : loopChannels.entrySet()) {
+                final List<Channel> channels = entry.getValue();
+                final TextWebSocketFrame loopFrame = frame.retainedDuplicate();
+                try {
+                    entry.getKey().execute(() -> {
+                        try {
+                            for (Channel channel : channels) {
+                                if (!channel.isWritable()) {
+                                    NettyMetrics.BROADCAST_SLOW_CHANNELS.increment();
+                                }
+                                channel.write(loopFrame.retainedDuplicate()).addListener(drainListener);
+                            }
+                            for (Channel channel : channels) {
+                                channel.flush();
+                            }
+                        } finally {
+                            loopFrame.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // EventLoop 已关闭
+                    loopFrame.release();
+                    pending.addAndGet(-channels.size());
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
 }
@@ -35,11 +35,6 @@ public interface NettyRedisConstants {
      * 本级address ip md5
      */
     String ADDRESS_MD5 = new Digester(DigestAlgorithm.MD5).digestHex(ADDRESS);
-    /**
-     * redis发布订阅topic：发送给指定用户
-     */
-    String PUSH_MESSAGE_TO_ONE = "PushMessageToOne";
-
     /**
      * redis发布订阅topic：发送给所有用户
      */
@@ -50,4 +45,34 @@ public interface NettyRedisConstants {
      * websocket 已登录的客户端(用户)
      */
     String WS_CLIENT = "WS:CLIENT:";
+
+    /**
+     * websocket 用户路由索引 userId -> 节点id(ADDRESS_MD5)
+     */
+    String WS_ROUTE = "WS:ROUTE:";
+
+    /**
+     * redis发布订阅topic前缀：发送给指定节点, 每个节点只订阅自己的topic
+     */
+    String PUSH_MESSAGE_TO_NODE = "PushMessageToNode:";
+
+    /**
+     * 获取用户路由key
+     *
+     * @param userId 用户id
+     * @return 路由key
+     */
+    static String getRouteKey(String userId) {
+        return WS_ROUTE + userId;
+    }
+
+    /**
+     * 获取节点topic
+     *
+     * @param nodeId 节点id
+     * @return 节点topic
+     */
+    static String getNodeTopic(String nodeId) {
+        return PUSH_MESSAGE_TO_NODE + nodeId;
+    }
 }
@@ -22,6 +22,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * @author sixiaojie
  * @date 2020-03-30-20:08
@@ -52,6 +54,13 @@ public class PushController {
         }
     }
 
+    @PostMapping("/pushMsg2Users")
+    public void pushMsg2Users(@RequestBody List<NettyPushMessageBody> nettyPushMessageBodies) {
+        if (Boolean.TRUE.equals(webSocketProperties.getEnableCluster())) {
+            pushService.pushMsg2Users(nettyPushMessageBodies);
+        }
+    }
+
     @PostMapping("/pushMsg2AllUser")
     public void pushMsg2AllUser(@RequestBody NettyPushMessageBody nettyPushMessageBody) {
         if (Boolean.TRUE.equals(webSocketProperties.getEnableCluster())) {
@@ -0,0 +1,18 @@
+package com.remember.netty.redis.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量推送消息信封，一次发布携带多个 (userId, message)
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Data
+public class NettyPushBatchBody implements Serializable {
+
+    private List<NettyPushMessageBody> messages;
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.redis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * netty 相关指标，注册到 micrometer 全局registry，通过 actuator 暴露
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class NettyMetrics {
+    /**
+     * constructor
+     */
+    private NettyMetrics() {
+    }
+
+    /**
+     * 广播写出的字节数(仅统计写成功的channel)
+     */
+    public static final Counter BROADCAST_BYTES = Counter.builder("netty.broadcast.bytes")
+            .baseUnit("bytes")
+            .description("bytes written by channel group broadcast")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 一次广播从开始到所有channel写完成的耗时
+     */
+    public static final Timer BROADCAST_DRAIN = Timer.builder("netty.broadcast.drain")
+            .description("time until every channel finished writing a broadcast")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 广播时处于不可写状态的channel次数
+     */
+    public static final Counter BROADCAST_SLOW_CHANNELS = Counter.builder("netty.broadcast.slow.channels")
+            .description("channels that were not writable when a broadcast was written")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 当前处于不可写状态的channel数
+     */
+    public static final AtomicInteger UNWRITABLE_CHANNELS = Metrics.globalRegistry.gauge("netty.channel.unwritable", new AtomicInteger());
+
+    /**
+     * 背压队列溢出丢弃的帧数
+     */
+    public static final Counter DROPPED_FRAMES = Counter.builder("netty.outbound.dropped.frames")
+            .description("frames dropped by the per-channel outbound queue")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 持续不可写被强制断开的channel数
+     */
+    public static final Counter EVICTED_SLOW_CHANNELS = Counter.builder("netty.outbound.evicted.channels")
+            .description("channels closed after staying unwritable too long")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 超出限流被丢弃的帧数
+     */
+    public static final Counter RATE_LIMIT_DROPPED_FRAMES = Counter.builder("netty.ratelimit.dropped.frames")
+            .description("inbound frames dropped by the rate limiter")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 超出限流被拒绝的握手数
+     */
+    public static final Counter RATE_LIMIT_REJECTED_HANDSHAKES = Counter.builder("netty.ratelimit.rejected.handshakes")
+            .description("handshake requests rejected by the rate limiter")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 频繁超限被关闭的channel数
+     */
+    public static final Counter RATE_LIMIT_CLOSED_CHANNELS = Counter.builder("netty.ratelimit.closed.channels")
+            .description("channels closed for repeatedly exceeding the rate limit")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 心跳超时被清理的channel数
+     */
+    public static final Counter HEARTBEAT_REAPED_CHANNELS = Counter.builder("netty.heartbeat.reaped.channels")
+            .description("channels closed after missing too many heartbeats")
+            .register(Metrics.globalRegistry);
+
+    /**
+     * 服务端发送的ping帧数
+     */
+    public static final Counter HEARTBEAT_PINGS = Counter.builder("netty.heartbeat.pings")
+            .description("ping frames sent by the server")
+            .register(Metrics.globalRegistry);
+
+}
@@ -2,14 +2,9 @@ package com.remember.netty.redis.pubsub;
 
 import com.alibaba.fastjson.JSON;
 import com.remember.netty.redis.constant.NettyChannelManager;
-import com.remember.netty.redis.entity.NettyPushMessageBody;
-import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import com.remember.netty.redis.entity.NettyPushBatchBody;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * @author sixiaojie
  * @date 2020-08-24-13:47
@@ -18,25 +13,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MessageReceive {
 
     /**
-     * 订阅消息,发送给指定用户
+     * 订阅本节点消息,发送给指定用户
+     * 批量信封只解析一次，再按EventLoop分组写出
      *
      * @param message /
      */
-    public void getMessageToOne(String message) {
-        NettyPushMessageBody pushMessageBody = JSON.toJavaObject(JSON.parseObject(message), NettyPushMessageBody.class);
-        log.info("订阅消息,发送给指定用户：{}", pushMessageBody.toString());
-
-        // 推送消息
-        String userId = pushMessageBody.getUserId();
-        if (NettyChannelManager.getUserChannelMap().containsKey(userId)) {
-            ConcurrentHashMap<String, Channel> userChannelMap = NettyChannelManager.getUserChannelMap();
-            Channel channel = userChannelMap.get(userId);
-            if (!Objects.isNull(channel)) {
-                // 如果该用户的客户端是与本服务器建立的channel,直接推送消息
-                channel.writeAndFlush(new TextWebSocketFrame(pushMessageBody.getMessage()));
-            }
-        } else {
-            log.warn("未找到userId {} 对应的channel", userId);
+    public void getMessageToNode(String message) {
+        final NettyPushBatchBody batchBody = JSON.parseObject(message, NettyPushBatchBody.class);
+        if (batchBody == null || batchBody.getMessages() == null || batchBody.getMessages().isEmpty()) {
+            return;
+        }
+        final int missed = NettyChannelManager.writeToUsers(batchBody.getMessages());
+        if (missed > 0) {
+            log.warn("订阅消息,{} 条消息未找到对应的channel", missed);
         }
     }
 
@@ -47,6 +36,6 @@ public class MessageReceive {
      */
     public void getMessageToAll(String message) {
         log.info("订阅消息，发送给所有用户：{}", message);
-        NettyChannelManager.getChannelGroup().writeAndFlush(new TextWebSocketFrame(message));
+        NettyChannelManager.broadcast(message);
     }
 }
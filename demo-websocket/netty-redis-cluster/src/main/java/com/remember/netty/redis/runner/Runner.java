@@ -16,10 +16,10 @@
 package com.remember.netty.redis.runner;
 
 import com.remember.netty.redis.constant.NettyRedisConstants;
+import com.remember.netty.redis.service.UserRouteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
@@ -35,22 +35,18 @@ import javax.annotation.PreDestroy;
 @RequiredArgsConstructor
 public class Runner implements CommandLineRunner {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserRouteService userRouteService;
 
     @Override
     public void run(String... args) {
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5))) {
-            log.info("删除Redis中未关闭的客户端连接信息，Delete redis key: {}", NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
-            redisTemplate.delete(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
-        }
+        log.info("删除Redis中未关闭的客户端连接信息，Delete redis key: {}", NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
+        userRouteService.clearLocalRoutes();
     }
 
     @PreDestroy
     public void destroy() {
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5))) {
-            log.info("删除Redis中未关闭的客户端连接信息，Delete redis key: {}", NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
-            redisTemplate.delete(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
-        }
+        log.info("删除Redis中未关闭的客户端连接信息，Delete redis key: {}", NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5);
+        userRouteService.clearLocalRoutes();
     }
 
 
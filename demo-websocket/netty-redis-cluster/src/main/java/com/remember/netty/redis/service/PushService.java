@@ -3,6 +3,8 @@ package com.remember.netty.redis.service;
 
 import com.remember.netty.redis.entity.NettyPushMessageBody;
 
+import java.util.List;
+
 /**
  * @author sixiaojie
  * @date 2020-03-30-17:06
@@ -28,6 +30,14 @@ public interface PushService {
      */
     void pushMsg2User(NettyPushMessageBody nettyPushMessageBody);
 
+    /**
+     * 跨节点批量推送给指定用户
+     * 按用户所在节点分组，每个节点只发布一次批量消息
+     *
+     * @param nettyPushMessageBodies 需要推送的消息
+     */
+    void pushMsg2Users(List<NettyPushMessageBody> nettyPushMessageBodies);
+
     /**
      * 跨节点推送给所有用户
      *
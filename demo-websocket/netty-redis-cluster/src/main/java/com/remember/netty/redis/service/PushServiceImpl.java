@@ -2,17 +2,25 @@ package com.remember.netty.redis.service;
 
 import com.remember.netty.redis.constant.NettyChannelManager;
 import com.remember.netty.redis.constant.NettyRedisConstants;
+import com.remember.netty.redis.entity.NettyPushBatchBody;
 import com.remember.netty.redis.entity.NettyPushMessageBody;
+import com.remember.netty.redis.properties.WebSocketProperties;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -24,9 +32,14 @@ import java.util.concurrent.ConcurrentHashMap;
 public class PushServiceImpl implements PushService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final UserRouteService userRouteService;
+    private final WebSocketProperties webSocketProperties;
 
-    public PushServiceImpl(@Nullable @Lazy RedisTemplate<String, Object> redisTemplate) {
+    public PushServiceImpl(@Nullable @Lazy RedisTemplate<String, Object> redisTemplate, UserRouteService userRouteService,
+                           WebSocketProperties webSocketProperties) {
         this.redisTemplate = redisTemplate;
+        this.userRouteService = userRouteService;
+        this.webSocketProperties = webSocketProperties;
     }
 
     @Override
@@ -39,30 +52,70 @@ public class PushServiceImpl implements PushService {
 
     @Override
     public void localPushAllUser(NettyPushMessageBody nettyPushMessageBody) {
-        NettyChannelManager.getChannelGroup().writeAndFlush(new TextWebSocketFrame(nettyPushMessageBody.getMessage()));
+        NettyChannelManager.broadcast(nettyPushMessageBody.getMessage());
     }
 
     @Override
     public void pushMsg2User(NettyPushMessageBody nettyPushMessageBody) {
+        pushMsg2Users(Collections.singletonList(nettyPushMessageBody));
+    }
+
+    @Override
+    public void pushMsg2Users(List<NettyPushMessageBody> nettyPushMessageBodies) {
         // 1. 客户端是与本服务器建立的channel,直接推送消息
-        if (NettyChannelManager.getUserChannelMap().containsKey(nettyPushMessageBody.getUserId())) {
-            Channel channel = NettyChannelManager.getUserChannelMap().get(nettyPushMessageBody.getUserId());
-            channel.writeAndFlush(new TextWebSocketFrame(nettyPushMessageBody.getMessage()));
-            log.info("用户 {} 在本节点,直接发送消息", nettyPushMessageBody.getUserId());
+        final List<NettyPushMessageBody> localMessages = new ArrayList<>();
+        final Map<String, List<NettyPushMessageBody>> remoteMessages = new HashMap<>();
+        for (NettyPushMessageBody body : nettyPushMessageBodies) {
+            if (NettyChannelManager.getUserChannelMap().containsKey(body.getUserId())) {
+                localMessages.add(body);
+            } else {
+                remoteMessages.computeIfAbsent(body.getUserId(), k -> new ArrayList<>()).add(body);
+            }
+        }
+        if (!localMessages.isEmpty()) {
+            NettyChannelManager.writeToUsers(localMessages);
+            log.debug("{} 条消息的用户在本节点,直接发送消息", localMessages.size());
+        }
+        if (remoteMessages.isEmpty()) {
             return;
         }
 
-        // 2. 发布给其他服务器消费
-        if (checkUserOnlineStatus(nettyPushMessageBody.getUserId())) {
-            NettyPushMessageBody pushMessageBody = new NettyPushMessageBody();
-            pushMessageBody.setUserId(nettyPushMessageBody.getUserId());
-            pushMessageBody.setMessage(nettyPushMessageBody.getMessage());
-            Objects.requireNonNull(redisTemplate).convertAndSend(NettyRedisConstants.PUSH_MESSAGE_TO_ONE, pushMessageBody);
-        } else {
-            log.warn("用户 {} 不在线", nettyPushMessageBody.getUserId());
+        // 2. 通过路由索引一次性定位用户所在节点，并按节点分组
+        final Map<String, String> routes = userRouteService.lookup(remoteMessages.keySet());
+        final Map<String, List<NettyPushMessageBody>> nodeMessages = new HashMap<>();
+        for (Map.Entry<String, List<NettyPushMessageBody>> entry : remoteMessages.entrySet()) {
+            final String userId = entry.getKey();
+            final String nodeId = routes.get(userId);
+            if (nodeId == null) {
+                log.warn("用户 {} 不在线", userId);
+            } else if (NettyRedisConstants.ADDRESS_MD5.equals(nodeId)) {
+                // 路由指向本节点但本地已无channel，属于残留路由
+                userRouteService.remove(userId, nodeId);
+                log.warn("用户 {} 不在线", userId);
+            } else {
+                nodeMessages.computeIfAbsent(nodeId, k -> new ArrayList<>()).addAll(entry.getValue());
+            }
         }
 
-
+        // 3. 每个节点只发布到自己的topic，按 publishBatchSize 切分信封
+        // 配置为0或负数时按1处理，避免切分时死循环
+        final int batchSize = Math.max(1, webSocketProperties.getRoute().getPublishBatchSize());
+        for (Map.Entry<String, List<NettyPushMessageBody>> entry : nodeMessages.entrySet()) {
+            final String nodeId = entry.getKey();
+            final List<NettyPushMessageBody> messages = entry.getValue();
+            for (int from = 0; from < messages.size(); from += batchSize) {
+                final NettyPushBatchBody batchBody = new NettyPushBatchBody();
+                batchBody.setMessages(messages.subList(from, Math.min(from + batchSize, messages.size())));
+                if (publish(NettyRedisConstants.getNodeTopic(nodeId), batchBody) == 0) {
+                    // 没有订阅者说明节点已下线，清理残留路由
+                    for (NettyPushMessageBody body : messages) {
+                        userRouteService.remove(body.getUserId(), nodeId);
+                    }
+                    log.warn("节点 {} 已下线，丢弃 {} 条消息", nodeId, messages.size());
+                    break;
+                }
+            }
+        }
     }
 
     @Override
@@ -71,27 +124,19 @@ public class PushServiceImpl implements PushService {
     }
 
     /**
-     * 检测用户在线状态
-     * @param userId 用户id
-     * @return 在线状态
+     * 发布消息
+     *
+     * @param topic   topic
+     * @param message 消息
+     * @return 收到消息的订阅者数量
      */
-    private boolean checkUserOnlineStatus(String userId) {
-        final Set<String> keys = Objects.requireNonNull(redisTemplate).keys(NettyRedisConstants.WS_CLIENT + "*");
-
-        // 如果没有客户端
-        if (Objects.requireNonNull(keys).isEmpty()) {
-            log.warn("用户 {} 不在线", userId);
-            return false;
-        }
-
-        for (String key : keys) {
-            if (Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(key, userId))) {
-                return true;
-            }
-        }
-        return false;
+    @SuppressWarnings("unchecked")
+    private long publish(String topic, Object message) {
+        final RedisTemplate<String, Object> template = Objects.requireNonNull(redisTemplate);
+        final byte[] rawTopic = RedisSerializer.string().serialize(topic);
+        final byte[] rawMessage = ((RedisSerializer<Object>) template.getValueSerializer()).serialize(message);
+        final Long receivers = template.execute((RedisCallback<Long>) connection -> connection.publish(rawTopic, rawMessage));
+        return receivers == null ? 0 : receivers;
     }
 
-
-
 }
@@ -0,0 +1,70 @@
+package com.remember.netty.redis.service;
+
+import io.netty.channel.Channel;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 用户路由索引(userId -> 节点id)
+ * 用于跨节点推送时一次查询定位用户所在节点
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public interface UserRouteService {
+
+    /**
+     * 鉴权成功后登记用户路由到本节点
+     * redis操作异步执行，可以在io线程中调用
+     *
+     * @param channel 用户channel
+     * @param userId  用户id
+     */
+    void register(Channel channel, String userId);
+
+    /**
+     * 心跳续期，同一channel在 refreshInterval 内只会访问一次redis
+     * redis操作异步执行，可以在io线程中调用
+     *
+     * @param channel 用户channel
+     */
+    void refresh(Channel channel);
+
+    /**
+     * 用户断开后移除路由，仅当路由仍指向本节点时才删除
+     * redis操作异步执行，可以在io线程中调用
+     *
+     * @param userId 用户id
+     */
+    void unregister(String userId);
+
+    /**
+     * 查询用户所在节点
+     *
+     * @param userId 用户id
+     * @return 节点id，不在线返回null
+     */
+    String lookup(String userId);
+
+    /**
+     * 批量查询用户所在节点，一次 MGET 完成
+     *
+     * @param userIds 用户id
+     * @return userId -> 节点id，不在线的用户不包含在结果中
+     */
+    Map<String, String> lookup(Collection<String> userIds);
+
+    /**
+     * 移除失效路由，仅当路由仍指向 nodeId 时才删除
+     *
+     * @param userId 用户id
+     * @param nodeId 节点id
+     */
+    void remove(String userId, String nodeId);
+
+    /**
+     * 清理本节点登记过的所有路由(启动、关闭时调用)
+     */
+    void clearLocalRoutes();
+}
@@ -0,0 +1,240 @@
+package com.remember.netty.redis.service;
+
+import com.remember.netty.redis.constant.NettyChannelManager;
+import com.remember.netty.redis.constant.NettyRedisConstants;
+import com.remember.netty.redis.properties.WebSocketProperties;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户路由索引实现
+ * 路由 key: WS:ROUTE:{userId} value: 节点id，带过期时间，由心跳续期
+ * <p>
+ * 登记、续期和注销由netty的io线程触发，访问redis投递到路由线程执行，不阻塞io线程；
+ * 同一用户的操作按userId固定分配到同一个单线程执行器，保证按提交顺序执行，
+ * 快速重连时旧连接的注销不会晚于新连接的登记
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Slf4j
+@Service
+public class UserRouteServiceImpl implements UserRouteService, DisposableBean {
+
+    /**
+     * 上次续期时间
+     */
+    private static final AttributeKey<Long> ROUTE_REFRESH_TIME = AttributeKey.valueOf("routeRefreshTime");
+
+    /**
+     * 路由仍指向当前节点时才删除，避免误删用户在其他节点的新连接
+     */
+    private static final RedisScript<Long> COMPARE_AND_DELETE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final WebSocketProperties webSocketProperties;
+
+    /**
+     * 路由执行器，按userId取模选择，每个执行器单线程
+     */
+    private final ExecutorService[] executors;
+
+    public UserRouteServiceImpl(@Nullable @Lazy RedisTemplate<String, Object> redisTemplate, WebSocketProperties webSocketProperties) {
+        this.redisTemplate = redisTemplate;
+        this.webSocketProperties = webSocketProperties;
+        final DefaultThreadFactory threadFactory = new DefaultThreadFactory("ws-route");
+        this.executors = new ExecutorService[Math.max(1, webSocketProperties.getRoute().getThreads())];
+        for (int i = 0; i < executors.length; i++) {
+            // 队列不设上限，注销任务不能因队列满被丢弃
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        }
+    }
+
+    @Override
+    public void register(Channel channel, String userId) {
+        if (!isCluster()) {
+            return;
+        }
+        channel.attr(ROUTE_REFRESH_TIME).set(System.currentTimeMillis());
+        final RedisTemplate<String, Object> template = Objects.requireNonNull(redisTemplate);
+        final long ttl = getRoute().getTtl().toMillis();
+        submit("register", userId, () -> {
+            if (!channel.isActive()) {
+                return;
+            }
+            template.opsForSet().add(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5, userId);
+            template.opsForValue().set(NettyRedisConstants.getRouteKey(userId), NettyRedisConstants.ADDRESS_MD5,
+                    ttl, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    public void refresh(Channel channel) {
+        if (!isCluster()) {
+            return;
+        }
+        final String userId = channel.attr(AttributeKey.<String>valueOf("userId")).get();
+        if (userId == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Long last = channel.attr(ROUTE_REFRESH_TIME).get();
+        if (last != null && now - last < getRoute().getRefreshInterval().toMillis()) {
+            return;
+        }
+        channel.attr(ROUTE_REFRESH_TIME).set(now);
+
+        final RedisTemplate<String, Object> template = Objects.requireNonNull(redisTemplate);
+        final String routeKey = NettyRedisConstants.getRouteKey(userId);
+        final long ttl = getRoute().getTtl().toMillis();
+        submit("refresh", userId, () -> {
+            if (!channel.isActive()) {
+                return;
+            }
+            // 路由已过期(例如redis重启)则重新登记，已被其他节点占用时不覆盖
+            if (!Boolean.TRUE.equals(template.expire(routeKey, ttl, TimeUnit.MILLISECONDS))) {
+                template.opsForValue().setIfAbsent(routeKey, NettyRedisConstants.ADDRESS_MD5, ttl, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void unregister(String userId) {
+        if (!isCluster() || userId == null) {
+            return;
+        }
+        final RedisTemplate<String, Object> template = Objects.requireNonNull(redisTemplate);
+        submit("unregister", userId, () -> {
+            if (NettyChannelManager.getUserChannelMap().containsKey(userId)) {
+                // 用户已在本节点重新连接，路由属于新连接，不删除
+                return;
+            }
+            template.opsForSet().remove(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5, userId);
+            remove(userId, NettyRedisConstants.ADDRESS_MD5);
+        });
+    }
+
+    @Override
+    public String lookup(String userId) {
+        if (!isCluster()) {
+            return null;
+        }
+        final Object nodeId = Objects.requireNonNull(redisTemplate).opsForValue().get(NettyRedisConstants.getRouteKey(userId));
+        return nodeId == null ? null : nodeId.toString();
+    }
+
+    @Override
+    public Map<String, String> lookup(Collection<String> userIds) {
+        if (!isCluster() || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final List<String> userIdList = new ArrayList<>(userIds);
+        final List<String> routeKeys = new ArrayList<>(userIdList.size());
+        for (String userId : userIdList) {
+            routeKeys.add(NettyRedisConstants.getRouteKey(userId));
+        }
+        final List<Object> nodeIds = Objects.requireNonNull(redisTemplate).opsForValue().multiGet(routeKeys);
+        if (nodeIds == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> result = new HashMap<>(userIdList.size() * 2);
+        for (int i = 0; i < userIdList.size(); i++) {
+            final Object nodeId = nodeIds.get(i);
+            if (nodeId != null) {
+                result.put(userIdList.get(i), nodeId.toString());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String userId, String nodeId) {
+        if (!isCluster()) {
+            return;
+        }
+        Objects.requireNonNull(redisTemplate).execute(COMPARE_AND_DELETE,
+                Collections.singletonList(NettyRedisConstants.getRouteKey(userId)), nodeId);
+    }
+
+    @Override
+    public void clearLocalRoutes() {
+        if (!isCluster()) {
+            return;
+        }
+        final String clientKey = NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5;
+        final Set<Object> userIds = Objects.requireNonNull(redisTemplate).opsForSet().members(clientKey);
+        if (userIds != null && !userIds.isEmpty()) {
+            log.info("删除Redis中本节点残留的用户路由，count: {}", userIds.size());
+            for (Object userId : userIds) {
+                remove(userId.toString(), NettyRedisConstants.ADDRESS_MD5);
+            }
+        }
+        redisTemplate.delete(clientKey);
+    }
+
+    /**
+     * 投递redis操作到userId对应的路由执行器，同一用户的操作按提交顺序执行
+     *
+     * @param action 操作名，用于日志
+     * @param userId 用户id
+     * @param task   redis操作
+     */
+    private void submit(String action, String userId, Runnable task) {
+        final ExecutorService executor = executors[Math.floorMod(userId.hashCode(), executors.length)];
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("{} route failed, userId:{}", action, userId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 只有关闭后才会拒绝，残留路由由启动/关闭时的 clearLocalRoutes 清理
+            log.warn("{} route rejected, userId:{}", action, userId);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : executors) {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean isCluster() {
+        return Boolean.TRUE.equals(webSocketProperties.getEnableCluster());
+    }
+
+    private WebSocketProperties.Route getRoute() {
+        return webSocketProperties.getRoute();
+    }
+}
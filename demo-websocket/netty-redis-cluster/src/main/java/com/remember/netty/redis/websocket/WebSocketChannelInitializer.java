@@ -18,8 +18,10 @@ package com.remember.netty.redis.websocket;
 import com.remember.netty.redis.properties.WebSocketProperties;
 import com.remember.netty.redis.websocket.handler.AuthHandler;
 import com.remember.netty.redis.websocket.handler.ClientMsgHandler;
+import com.remember.netty.redis.websocket.handler.ConnectionEventHandler;
 import com.remember.netty.redis.websocket.handler.HeartBeatHandler;
 import com.remember.netty.redis.websocket.handler.RateLimitHandler;
+import com.remember.netty.redis.websocket.handler.WriteBackpressureHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
@@ -31,6 +33,8 @@ import io.netty.handler.timeout.IdleStateHandler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * websocket channel 初始化
  *
@@ -43,6 +47,7 @@ public class WebSocketChannelInitializer extends ChannelInitializer<SocketChanne
 
     private final AuthHandler authHandler;
     private final ClientMsgHandler clientMsgHandler;
+    private final ConnectionEventHandler connectionEventHandler;
     private final HeartBeatHandler heartBeatHandler;
     private final RateLimitHandler rateLimitHandler;
     private final WebSocketProperties webSocketProperties;
@@ -56,8 +61,8 @@ public class WebSocketChannelInitializer extends ChannelInitializer<SocketChanne
     protected void initChannel(SocketChannel ch) throws Exception {
         // 流水线管理通道中的处理程序（Handler），用来处理业务
 
-        // 限流handler
-        ch.pipeline().addLast(rateLimitHandler);
+        // 连接生命周期事件，放在最前面，整个连接期间都在pipeline中
+        ch.pipeline().addLast(connectionEventHandler);
 
         // webSocket协议本身是基于http协议的，所以这边也要使用http编解码器
         ch.pipeline().addLast(new HttpServerCodec());
@@ -72,11 +77,15 @@ public class WebSocketChannelInitializer extends ChannelInitializer<SocketChanne
          */
         ch.pipeline().addLast(new HttpObjectAggregator(1024 * 64));
 
+        // 限流handler，放在聚合之后才能拿到握手请求和解码后的websocket帧
+        ch.pipeline().addLast(rateLimitHandler);
+
         // 自定义鉴权等配置信息
         ch.pipeline().addLast(authHandler);
 
-        // 针对客户端，若10s内无读事件则触发心跳处理方法 CustomWebSocketHandler#userEventTriggered
-        ch.pipeline().addLast(new IdleStateHandler(10, 10, 0));
+        // 针对客户端，若readerIdle内无读事件/writerIdle内无写事件则触发心跳处理方法 HeartBeatHandler#userEventTriggered
+        WebSocketProperties.HeartBeat heartBeat = webSocketProperties.getHeartBeat();
+        ch.pipeline().addLast(new IdleStateHandler(heartBeat.getReaderIdle().toMillis(), heartBeat.getWriterIdle().toMillis(), 0, TimeUnit.MILLISECONDS));
         ch.pipeline().addLast(heartBeatHandler);
 
         // 自定义的handler，处理业务逻辑
@@ -88,5 +97,8 @@ public class WebSocketChannelInitializer extends ChannelInitializer<SocketChanne
         3. 核心功能是将http协议升级为ws协议，保持长连接
         */
         ch.pipeline().addLast(new WebSocketServerProtocolHandler(webSocketProperties.getNetty().getPath(), WEBSOCKET_PROTOCOL, true, 65536 * 10));
+
+        // 写缓冲背压，放在最后使 channel.write 最先经过，每个channel独立实例
+        ch.pipeline().addLast(new WriteBackpressureHandler(webSocketProperties.getOutbound()));
     }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.redis.websocket.auth;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 握手token校验，接入真实鉴权(jwt、redis会话等)时注入自定义实现即可
+ * <p>
+ * 该方法由 {@link TokenAuthenticator} 在鉴权线程池中调用，实现中可以直接阻塞访问redis，
+ * 也可以返回异步客户端的future。校验失败返回 null 或异常结束的future
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@FunctionalInterface
+public interface TokenVerifier {
+
+    /**
+     * 校验token
+     *
+     * @param token 握手携带的token
+     * @return 校验结果，失败时结果为null或异常结束
+     */
+    CompletableFuture<VerifiedToken> verify(String token);
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.redis.websocket.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 已校验的token
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    /**
+     * token对应的用户id
+     */
+    private final String userId;
+
+    /**
+     * token过期时间戳(毫秒)，null表示不过期，本地缓存按 cacheTtl 过期
+     */
+    private final Long expireAt;
+
+}
@@ -16,21 +16,17 @@
 package com.remember.netty.redis.websocket.handler;
 
 import com.remember.netty.redis.constant.NettyChannelManager;
-import com.remember.netty.redis.constant.NettyRedisConstants;
-import com.remember.netty.redis.properties.WebSocketProperties;
+import com.remember.netty.redis.metrics.ConnectionEventRecorder;
+import com.remember.netty.redis.metrics.ConnectionEventRecorder.ConnectionEvent;
+import com.remember.netty.redis.service.UserRouteService;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
-import io.netty.util.AttributeKey;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
-
 /**
  * 接收客户端消息的handler
  *
@@ -40,15 +36,11 @@ import java.util.Objects;
 @Slf4j
 @Component
 @ChannelHandler.Sharable
+@RequiredArgsConstructor
 public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final WebSocketProperties webSocketProperties;
-
-    public ClientMsgHandler(@Nullable @Lazy RedisTemplate<String, Object> redisTemplate, WebSocketProperties webSocketProperties) {
-        this.redisTemplate = redisTemplate;
-        this.webSocketProperties = webSocketProperties;
-    }
+    private final UserRouteService userRouteService;
+    private final ConnectionEventRecorder connectionEventRecorder;
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) throws Exception {
@@ -67,6 +59,7 @@ public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketF
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.EXCEPTION, ctx.channel(), cause);
         log.info("异常：{}", cause.getMessage());
         removeUserId(ctx);
         ctx.close();
@@ -76,13 +69,9 @@ public class ClientMsgHandler extends SimpleChannelInboundHandler<TextWebSocketF
 
 
     private void removeUserId(ChannelHandlerContext ctx) {
-        NettyChannelManager.getChannelGroup().remove(ctx.channel());
-
-        AttributeKey<String> key = AttributeKey.valueOf("userId");
-        String userId = ctx.channel().attr(key).get();
-        NettyChannelManager.getUserChannelMap().remove(userId);
-        if (Boolean.TRUE.equals(webSocketProperties.getEnableCluster())) {
-            Objects.requireNonNull(redisTemplate).opsForSet().remove(NettyRedisConstants.WS_CLIENT + NettyRedisConstants.ADDRESS_MD5, userId);
+        String userId = NettyChannelManager.removeChannel(ctx.channel());
+        if (userId != null) {
+            userRouteService.unregister(userId);
         }
 
         ctx.channel().close();
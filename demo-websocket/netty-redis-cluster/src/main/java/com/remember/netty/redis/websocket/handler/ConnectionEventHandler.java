@@ -0,0 +1,63 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.redis.websocket.handler;
+
+import com.remember.netty.redis.metrics.ConnectionEventRecorder;
+import com.remember.netty.redis.metrics.ConnectionEventRecorder.ConnectionEvent;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接生命周期事件handler，位于pipeline最前面且不会被移除，
+ * 鉴权前后的连接都会经过这里记录 注册/激活/断开/注销 事件
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+@Component
+@ChannelHandler.Sharable
+@RequiredArgsConstructor
+public class ConnectionEventHandler extends ChannelInboundHandlerAdapter {
+
+    private final ConnectionEventRecorder connectionEventRecorder;
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.REGISTERED, ctx.channel());
+        super.channelRegistered(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.ACTIVE, ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.INACTIVE, ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
+        connectionEventRecorder.record(ConnectionEvent.UNREGISTERED, ctx.channel());
+        super.channelUnregistered(ctx);
+    }
+}
@@ -15,15 +15,25 @@
  */
 package com.remember.netty.redis.websocket.handler;
 
+import com.remember.netty.redis.constant.NettyChannelManager;
+import com.remember.netty.redis.metrics.NettyMetrics;
+import com.remember.netty.redis.properties.WebSocketProperties;
+import com.remember.netty.redis.service.UserRouteService;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
+import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 /**
  * 心跳检测handler
+ * 丢失次数保存在channel属性中，每个channel独立计数
  *
  * @author wangjiahao
  * @date 2022/12/13 17:27
@@ -32,26 +42,76 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 @ChannelHandler.Sharable
+@RequiredArgsConstructor
 public class HeartBeatHandler extends ChannelInboundHandlerAdapter {
-    private int lossConnectCount = 0;
+
+    /**
+     * 连续读空闲次数
+     */
+    private static final AttributeKey<Integer> LOSS_CONNECT_COUNT = AttributeKey.valueOf("lossConnectCount");
+
+    private final UserRouteService userRouteService;
+    private final WebSocketProperties webSocketProperties;
+
+    /**
+     * 有读事件(包括pong)说明客户端存活，清零丢失次数并续期用户路由，路由只在这里续期
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (ctx.channel().attr(LOSS_CONNECT_COUNT).get() != null) {
+            ctx.channel().attr(LOSS_CONNECT_COUNT).set(null);
+        }
+        userRouteService.refresh(ctx.channel());
+        super.channelRead(ctx, msg);
+    }
 
     /**
      * 用户事件
      * 自定义空闲状态检测(自定义心跳检测handler)
-     * 若连续2次无读事件，则关闭这个客户端channel
+     * 读空闲时发送ping探测，若连续 maxMissed 次无读事件，则清理并关闭这个客户端channel；
+     * 写空闲时主动发送ping保活；空闲事件不代表客户端存活，不续期用户路由
      */
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
             IdleStateEvent event = (IdleStateEvent) evt;
-//            if (event.state() == IdleState.READER_IDLE) {
-//                lossConnectCount++;
-//                if (lossConnectCount > 2) {
-//                    ctx.channel().close();
-//                }
-//            }
+            if (event.state() == IdleState.READER_IDLE) {
+                final Integer count = ctx.channel().attr(LOSS_CONNECT_COUNT).get();
+                final int lossConnectCount = count == null ? 1 : count + 1;
+                if (lossConnectCount >= webSocketProperties.getHeartBeat().getMaxMissed()) {
+                    reap(ctx);
+                    return;
+                }
+                ctx.channel().attr(LOSS_CONNECT_COUNT).set(lossConnectCount);
+                ping(ctx);
+            } else if (event.state() == IdleState.WRITER_IDLE) {
+                ping(ctx);
+            }
         } else {
             super.userEventTriggered(ctx, evt);
         }
     }
+
+    /**
+     * 发送ping，握手完成前channel上还没有websocket编码器，不发送
+     */
+    private void ping(ChannelHandlerContext ctx) {
+        if (ctx.pipeline().get(WebSocket08FrameEncoder.class) != null) {
+            NettyMetrics.HEARTBEAT_PINGS.increment();
+            ctx.channel().writeAndFlush(new PingWebSocketFrame());
+        }
+    }
+
+    /**
+     * 清理本地map和集群路由后关闭channel
+     */
+    private void reap(ChannelHandlerContext ctx) {
+        NettyMetrics.HEARTBEAT_REAPED_CHANNELS.increment();
+        final String userId = NettyChannelManager.removeChannel(ctx.channel());
+        if (userId != null) {
+            userRouteService.unregister(userId);
+        }
+        log.debug("channel {} 心跳超时，关闭连接，userId: {}", ctx.channel().id().asShortText(), userId);
+        ctx.channel().close();
+    }
 }
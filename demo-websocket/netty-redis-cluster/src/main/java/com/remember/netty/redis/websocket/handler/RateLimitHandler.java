@@ -15,13 +15,36 @@
  */
 package com.remember.netty.redis.websocket.handler;
 
+import com.remember.netty.redis.metrics.NettyMetrics;
+import com.remember.netty.redis.properties.WebSocketProperties;
+import com.remember.netty.redis.websocket.limiter.StripedTokenBucket;
+import com.remember.netty.redis.websocket.limiter.TokenBucket;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
 /**
- * 限流handler 待实现
+ * 限流handler
+ * 握手请求按远程IP限流；websocket数据帧同时受 channel、远程IP、userId 三级令牌桶限制，
+ * 三级都有令牌时才一起扣减，超限的帧直接丢弃，窗口内多次超限的channel会被关闭；
+ * Ping/Pong/Close 控制帧不限流
  *
  * @author wangjiahao
  * @date 2022/12/13 17:29
@@ -30,4 +53,125 @@ import org.springframework.stereotype.Component;
 @Component
 @ChannelHandler.Sharable
 public class RateLimitHandler extends ChannelInboundHandlerAdapter {
+
+    private static final AttributeKey<String> USER_ID = AttributeKey.valueOf("userId");
+    private static final AttributeKey<State> STATE = AttributeKey.valueOf("rateLimitState");
+
+    private final WebSocketProperties.RateLimit rateLimit;
+    private final StripedTokenBucket handshakeBuckets;
+    private final StripedTokenBucket ipBuckets;
+    private final StripedTokenBucket userBuckets;
+    private final long offenderWindow;
+
+    public RateLimitHandler(WebSocketProperties webSocketProperties) {
+        this.rateLimit = webSocketProperties.getRateLimit();
+        this.handshakeBuckets = new StripedTokenBucket(rateLimit.getStripes(), rateLimit.getHandshakeRate(), rateLimit.getHandshakeBurst());
+        this.ipBuckets = new StripedTokenBucket(rateLimit.getStripes(), rateLimit.getIpRate(), rateLimit.getIpBurst());
+        this.userBuckets = new StripedTokenBucket(rateLimit.getStripes(), rateLimit.getUserRate(), rateLimit.getUserBurst());
+        this.offenderWindow = rateLimit.getOffenderWindow().toNanos();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (Boolean.TRUE.equals(rateLimit.getEnabled())) {
+            ctx.channel().attr(STATE).set(new State(rateLimit.getChannelRate(), rateLimit.getChannelBurst(), ipHash(ctx.channel().remoteAddress())));
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        final State state = ctx.channel().attr(STATE).get();
+        if (state == null) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        final long now = System.nanoTime();
+        if (msg instanceof FullHttpRequest) {
+            if (!handshakeBuckets.tryAcquire(handshakeBuckets.stripe(state.ipHash), now)) {
+                ReferenceCountUtil.release(msg);
+                NettyMetrics.RATE_LIMIT_REJECTED_HANDSHAKES.increment();
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.TOO_MANY_REQUESTS))
+                        .addListener(ChannelFutureListener.CLOSE);
+                return;
+            }
+        } else if (msg instanceof WebSocketFrame && !isControlFrame(msg)) {
+            if (!tryAcquire(ctx, state, now)) {
+                ReferenceCountUtil.release(msg);
+                NettyMetrics.RATE_LIMIT_DROPPED_FRAMES.increment();
+                if (isRepeatOffender(state, now)) {
+                    NettyMetrics.RATE_LIMIT_CLOSED_CHANNELS.increment();
+                    log.warn("channel {} 频繁超出限流，关闭连接", ctx.channel().id().asShortText());
+                    ctx.close();
+                }
+                return;
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private static boolean isControlFrame(Object frame) {
+        return frame instanceof PingWebSocketFrame || frame instanceof PongWebSocketFrame || frame instanceof CloseWebSocketFrame;
+    }
+
+    /**
+     * 先确认三级桶都有令牌再扣减，任意一级拒绝时不消耗其它级的令牌
+     */
+    private boolean tryAcquire(ChannelHandlerContext ctx, State state, long now) {
+        if (!state.channelBucket.canAcquire(now)) {
+            return false;
+        }
+        final int ipStripe = ipBuckets.stripe(state.ipHash);
+        if (state.userStripe < 0) {
+            final String userId = ctx.channel().attr(USER_ID).get();
+            if (userId != null) {
+                state.userStripe = userBuckets.stripe(userId.hashCode());
+            }
+        }
+        final boolean limitUser = state.userStripe >= 0;
+        if (!ipBuckets.canAcquire(ipStripe, now) || limitUser && !userBuckets.canAcquire(state.userStripe, now)) {
+            return false;
+        }
+        // ip、user 桶被多个EventLoop共享，检查后仍可能被抢走，扣减失败时回滚已扣的令牌
+        if (!ipBuckets.tryAcquire(ipStripe, now)) {
+            return false;
+        }
+        if (limitUser && !userBuckets.tryAcquire(state.userStripe, now)) {
+            ipBuckets.release(ipStripe);
+            return false;
+        }
+        // channel 桶只在本EventLoop访问，检查通过后一定能扣减
+        return state.channelBucket.tryAcquire(now);
+    }
+
+    private boolean isRepeatOffender(State state, long now) {
+        if (now - state.violationWindowStart > offenderWindow) {
+            state.violationWindowStart = now;
+            state.violations = 0;
+        }
+        return ++state.violations >= rateLimit.getOffenderThreshold();
+    }
+
+    private static int ipHash(SocketAddress address) {
+        if (address instanceof InetSocketAddress && ((InetSocketAddress) address).getAddress() != null) {
+            return ((InetSocketAddress) address).getAddress().hashCode();
+        }
+        return address == null ? 0 : address.hashCode();
+    }
+
+    /**
+     * 每个channel的限流状态，只在channel所属的EventLoop中访问
+     */
+    private static final class State {
+        private final TokenBucket channelBucket;
+        private final int ipHash;
+        private int userStripe = -1;
+        private int violations;
+        private long violationWindowStart = System.nanoTime();
+
+        private State(int rate, int burst, int ipHash) {
+            this.channelBucket = new TokenBucket(rate, burst);
+            this.ipHash = ipHash;
+        }
+    }
 }
@@ -0,0 +1,66 @@
+/**
+ * Copyright [2022] [remember5]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.remember.netty.redis.websocket.limiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个channel的令牌桶(GCRA)
+ * 只在channel所属的EventLoop中访问，无需同步
+ *
+ * @author wangjiahao
+ * @date 2026/10/18
+ */
+public class TokenBucket {
+
+    private final long interval;
+    private final long burstWindow;
+    private long tat = Long.MIN_VALUE;
+
+    /**
+     * @param rate  每秒令牌数
+     * @param burst 桶容量
+     */
+    public TokenBucket(int rate, int burst) {
+        this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(rate, 1);
+        this.burstWindow = interval * Math.max(burst, 1);
+    }
+
+    /**
+     * 是否还有令牌，不消耗令牌
+     *
+     * @param now 当前时间 System.nanoTime()
+     * @return 是否有令牌
+     */
+    public boolean canAcquire(long now) {
+        return Math.max(tat, now) + interval - now <= burstWindow;
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param now 当前时间 System.nanoTime()
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(long now) {
+        final long next = Math.max(tat, now) + interval;
+        if (next - now > burstWindow) {
+            return false;
+        }
+        tat = next;
+        return true;
+    }
+}